@@ -0,0 +1,115 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ways a game can store the pebbles inside its bags.
+ */
+public enum BagStorage {
+
+    /**
+     * Pebbles are kept in the list given to the game.
+     */
+    LIST {
+        @Override
+        PebbleStore create( List<Integer> pebbles ) {
+            return new ListPebbleStore(pebbles);
+        }
+
+        @Override
+        PebbleStore createEmpty( int capacity ) {
+            return new ListPebbleStore(new ArrayList<>(capacity));
+        }
+    },
+
+    /**
+     * Pebbles are copied into a primitive int array with constant time draws.
+     */
+    ARRAY {
+        @Override
+        PebbleStore create( List<Integer> pebbles ) {
+            return new ArrayPebbleStore(pebbles);
+        }
+
+        @Override
+        PebbleStore createEmpty( int capacity ) {
+            return new ArrayPebbleStore(capacity);
+        }
+    },
+
+    /**
+     * Only a count of each distinct weight is kept, for bags with many pebbles of few weights.
+     */
+    HISTOGRAM {
+        @Override
+        PebbleStore create( List<Integer> pebbles ) {
+            return new HistogramPebbleStore(pebbles);
+        }
+
+        @Override
+        PebbleStore createEmpty( int capacity ) {
+            return new HistogramPebbleStore();
+        }
+    },
+
+    /**
+     * Pebbles are kept in the slots of an atomic array, so players draw from and deposit
+     * into bags without locking them. Each store can hold every pebble of the game.
+     */
+    ATOMIC {
+        @Override
+        PebbleStore create( List<Integer> pebbles ) {
+            return new AtomicPebbleStore(pebbles, pebbles.size());
+        }
+
+        @Override
+        PebbleStore createEmpty( int capacity ) {
+            return new AtomicPebbleStore(capacity);
+        }
+
+        @Override
+        PebbleStore create( List<Integer> pebbles, int gamePebbles ) {
+            return new AtomicPebbleStore(pebbles, gamePebbles);
+        }
+
+        @Override
+        PebbleStore createEmpty( int bagPebbles, int gamePebbles ) {
+            return new AtomicPebbleStore(gamePebbles);
+        }
+    };
+
+    /**
+     * Create a store holding the given pebbles.
+     * @param pebbles Pebbles to fill the store with.
+     * @return New store.
+     */
+    abstract PebbleStore create( List<Integer> pebbles );
+
+    /**
+     * Create an empty store.
+     * @param capacity Expected number of pebbles the store will hold.
+     * @return New store.
+     */
+    abstract PebbleStore createEmpty( int capacity );
+
+    /**
+     * Create a store holding the given pebbles, for a bag of a game.
+     * @param pebbles Pebbles to fill the store with.
+     * @param gamePebbles Number of pebbles in every bag of the game, which the store may have to hold.
+     * @return New store.
+     */
+    PebbleStore create( List<Integer> pebbles, int gamePebbles ) {
+        return create(pebbles);
+    }
+
+    /**
+     * Create an empty store, for a bag of a game.
+     * @param bagPebbles Expected number of pebbles the store will hold.
+     * @param gamePebbles Number of pebbles in every bag of the game, which the store may have to hold.
+     * @return New store.
+     */
+    PebbleStore createEmpty( int bagPebbles, int gamePebbles ) {
+        return createEmpty(bagPebbles);
+    }
+}
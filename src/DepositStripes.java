@@ -0,0 +1,115 @@
+package pebble;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pebbles discarded to a white bag that have not been added to the bag yet.
+ *
+ * Each player deposits into one of a few stripes, each locked on its own, so players
+ * discarding to the same bag only wait for each other when they share a stripe. The
+ * stripes are only emptied into the bag when its paired black bag is refilled, which
+ * locks each stripe once rather than the bag once for every discard.
+ */
+class DepositStripes {
+    private final Stripe[] stripes;
+
+    /**
+     * Constructs empty stripes.
+     * @param numStripes Number of stripes.
+     * @param capacity Number of pebbles the stripes can hold between them before growing.
+     */
+    DepositStripes(int numStripes, int capacity){
+        if( numStripes < 1 ) {
+            throw new IllegalArgumentException("Deposits need at least one stripe, not " + numStripes);
+        }
+        stripes = new Stripe[numStripes];
+        for(int i = 0; i < numStripes; i++){
+            stripes[i] = new Stripe(capacity / numStripes + 1);
+        }
+    }
+
+    /**
+     * @return Number of stripes.
+     */
+    int getNumStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Deposit a pebble into the stripe of a player.
+     * @param depositor Number of the player depositing, starting from 1.
+     * @param pebble Pebble to deposit.
+     */
+    void add( int depositor, int pebble ) {
+        Stripe stripe = stripes[(depositor - 1) % stripes.length];
+        stripe.lock.lock();
+        try{
+            stripe.pebbles.add(pebble);
+            stripe.size = stripe.pebbles.size();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Move every deposited pebble into a store, leaving the stripes empty.
+     * @param store Store to move the pebbles to.
+     */
+    void drainTo( PebbleStore store ) {
+        for( Stripe stripe : stripes ) {
+            if( stripe.size == 0 ) {
+                continue;
+            }
+            stripe.lock.lock();
+            try{
+                store.addAll(stripe.pebbles);
+                stripe.pebbles.clear();
+                stripe.size = 0;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Get the number of deposited pebbles, which may be out of date while players deposit.
+     * @return Number of pebbles in every stripe.
+     */
+    int size() {
+        int size = 0;
+        for( Stripe stripe : stripes ) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * Remove every deposited pebble.
+     */
+    void clear() {
+        for( Stripe stripe : stripes ) {
+            stripe.lock.lock();
+            try{
+                stripe.pebbles.clear();
+                stripe.size = 0;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Pebbles of one stripe and the lock guarding them. The size is kept beside the
+     * pebbles, so it can be read without the lock.
+     */
+    private static class Stripe {
+        private final ReentrantLock lock;
+        private final ArrayPebbleStore pebbles;
+        private volatile int size;
+
+        private Stripe(int capacity){
+            lock = new ReentrantLock();
+            pebbles = new ArrayPebbleStore(capacity);
+        }
+    }
+}
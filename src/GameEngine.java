@@ -0,0 +1,18 @@
+package pebble;
+
+/**
+ * How the players of a game are run.
+ */
+enum GameEngine {
+
+    /**
+     * Every player runs on their own thread, all playing at once.
+     */
+    THREADS,
+
+    /**
+     * The players take turns one at a time on a single thread, in a set order,
+     * so a seeded game plays out the same every time.
+     */
+    LOCKSTEP
+}
@@ -0,0 +1,188 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays many games at once on a few event loops, one per core by default, each loop
+ * owning a shard of the games.
+ *
+ * A game is handed to the loop with the fewest games when it is submitted, and is only
+ * ever played by that loop's thread. Each loop steps every player of its games through
+ * their states, filling, waiting, playing and done, visiting its games in turn and taking
+ * a few steps of each. As a game never leaves its loop, its bags are never locked, and
+ * the only thing the loops share is the queue each one takes new games from, so the
+ * games played per second grow with the number of loops up to the number of cores.
+ */
+public final class GameLoops implements AutoCloseable {
+    private final Loop[] loops;
+    private final int stepsPerVisit;
+    private final Object lock;
+    private boolean closed;
+
+    /**
+     * Make a loop per core, each visit to a game taking a single step.
+     */
+    public GameLoops() {
+        this(Runtime.getRuntime().availableProcessors(), 1);
+    }
+
+    /**
+     * @param numLoops Number of event loops, each with its own thread.
+     * @param stepsPerVisit Number of steps of a game taken each time its loop visits it.
+     */
+    public GameLoops( int numLoops, int stepsPerVisit ) {
+        if( numLoops < 1 || stepsPerVisit < 1 ) {
+            throw new IllegalArgumentException("Game loops need at least one loop and one step per visit.");
+        }
+        this.stepsPerVisit = stepsPerVisit;
+        lock = new Object();
+        loops = new Loop[numLoops];
+        for(int i = 0; i < numLoops; i++){
+            loops[i] = new Loop(i + 1);
+        }
+    }
+
+    /**
+     * Submit a game, with the players taking turns in order of their number and no time limit.
+     * @param game A game that has not been started.
+     * @return Result of the game, completed on the game's loop once every player has stopped.
+     */
+    public CompletableFuture<GameResult> submit( PebbleGame game ) {
+        return submit(game, TurnOrder.ROUND_ROBIN, Long.MAX_VALUE);
+    }
+
+    /**
+     * Submit a game to the loop with the fewest games. Cancelling the returned future
+     * stops the game at its next step. Callbacks attached to the future run on the game's
+     * loop, so slow callbacks should use the async variants to leave the loop to its games.
+     * @param game A game that has not been started.
+     * @param order Order of the players' turns in each round.
+     * @param timeLimitNanos Time after which the game is stopped.
+     * @return Result of the game, completed on the game's loop once every player has stopped.
+     * @throws RejectedExecutionException If the loops have been closed.
+     * @throws IllegalStateException If the game has already been started.
+     */
+    public CompletableFuture<GameResult> submit( PebbleGame game, TurnOrder order, long timeLimitNanos ) {
+        synchronized( lock ) {
+            if( closed ) {
+                throw new RejectedExecutionException("The game loops have been closed.");
+            }
+            SteppedGame stepped = new SteppedGame(game, order, timeLimitNanos);
+            Loop quietest = loops[0];
+            for( Loop loop : loops ) {
+                if( loop.games.get() < quietest.games.get() ) {
+                    quietest = loop;
+                }
+            }
+            quietest.add(stepped);
+            return stepped.getResult();
+        }
+    }
+
+    /**
+     * @return Number of games submitted that have not finished.
+     */
+    public int getActiveGames() {
+        int active = 0;
+        for( Loop loop : loops ) {
+            active += loop.games.get();
+        }
+        return active;
+    }
+
+    /**
+     * Stop taking new games, and wait for every loop to finish its games.
+     */
+    @Override
+    public void close() {
+        synchronized( lock ) {
+            closed = true;
+        }
+        boolean interrupted = false;
+        for( Loop loop : loops ) {
+            loop.closing = true;
+            LockSupport.unpark(loop.thread);
+        }
+        for( Loop loop : loops ) {
+            while( loop.thread.isAlive() ) {
+                try{
+                    loop.thread.join();
+                } catch( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+        }
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An event loop, with the games it owns and the queue of games handed to it.
+     */
+    private class Loop implements Runnable {
+        private final Queue<SteppedGame> inbox;
+        private final AtomicInteger games;
+        private final Thread thread;
+        private volatile boolean closing;
+
+        /**
+         * Make a loop and start its thread.
+         * @param number Number of the loop, used for naming its thread.
+         */
+        private Loop(int number){
+            inbox = new ConcurrentLinkedQueue<>();
+            games = new AtomicInteger();
+            thread = new Thread(this, "Game loop " + number);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Hand a game to the loop, waking it if it is idle.
+         * @param game The game.
+         */
+        private void add( SteppedGame game ) {
+            games.incrementAndGet();
+            inbox.add(game);
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            List<SteppedGame> owned = new ArrayList<>();
+            while( true ) {
+                //Park only while there is nothing to play, until closed with every game finished.
+                while( owned.isEmpty() && inbox.isEmpty() ) {
+                    if( closing && inbox.isEmpty() ) {
+                        return;
+                    }
+                    LockSupport.park(this);
+                }
+                SteppedGame handed = inbox.poll();
+                while( handed != null ) {
+                    owned.add(handed);
+                    handed = inbox.poll();
+                }
+                //Visit every game in turn, dropping the games that have ended.
+                int i = 0;
+                while( i < owned.size() ) {
+                    if( owned.get(i).step(stepsPerVisit) ) {
+                        i++;
+                    } else {
+                        owned.set(i, owned.get(owned.size() - 1));
+                        owned.remove(owned.size() - 1);
+                        games.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package pebble;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A pool of games of the same setup, reset and reused rather than made again for
+ * every game, so playing many games does not keep allocating bags, players and logs.
+ *
+ * Any number of threads can borrow games at once. A new game is only made when every
+ * game in the pool is in use, so the pool grows to the most games played at once.
+ * The game returned most recently is lent out first, as it is the most likely to still
+ * be in a cache.
+ */
+public final class GamePool {
+    private final int numPlayers;
+    private final BagStorage storage;
+    private final List<List<Integer>> blackBagContents;
+    private final ConcurrentLinkedDeque<PebbleGame> idle;
+
+    /**
+     * @param numPlayers Number of players in each game.
+     * @param storage How the pebbles inside the bags are stored, which must copy the pebbles.
+     * @param blackBagContents Pebbles of each black bag, which every game copies and keeps to be
+     * reset, so they must never be changed.
+     */
+    public GamePool( int numPlayers, BagStorage storage, List<List<Integer>> blackBagContents ) {
+        if( storage == BagStorage.LIST ) {
+            throw new IllegalArgumentException("Pooled games cannot share the pebble lists they are given.");
+        }
+        this.numPlayers = numPlayers;
+        this.storage = storage;
+        this.blackBagContents = blackBagContents;
+        idle = new ConcurrentLinkedDeque<>();
+    }
+
+    /**
+     * Borrow a game that has not been started, making one if every game is in use.
+     * @return The game, which must be given back once finished.
+     */
+    public PebbleGame acquire() {
+        PebbleGame game = idle.pollFirst();
+        return game != null ? game : new PebbleGame(numPlayers, storage, blackBagContents);
+    }
+
+    /**
+     * Give back a borrowed game once every player has stopped, resetting it for the next borrower.
+     * @param game The game, which must not be used again until borrowed again.
+     * @throws IllegalStateException If the game is still being played.
+     */
+    public void release( PebbleGame game ) {
+        game.reset();
+        idle.offerFirst(game);
+    }
+
+    /**
+     * @return Number of games waiting to be borrowed.
+     */
+    public int idleGames() {
+        return idle.size();
+    }
+}
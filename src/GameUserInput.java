@@ -4,12 +4,15 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 class GameUserInput {
     
     private Scanner keyboardInput;
+    private final Map<String, String> options = new HashMap<>();
     
     /**
      * GameUserInput constructor.
@@ -24,6 +27,295 @@ class GameUserInput {
         keyboardInput = new Scanner(System.in);
     }
     
+    /**
+     * Reads the options given on the command line, each written as --name=value.
+     * @param args Command line arguments of the program.
+     */
+    void setCommandLineOptions( String[] args ) {
+        for( String arg : args ) {
+            int split = arg.indexOf('=');
+            if( !arg.startsWith("--") || split < 0 ) {
+                System.out.println( "Ignoring option " + arg + ", options must be written as --name=value.");
+                continue;
+            }
+            options.put(arg.substring(2, split).toLowerCase(), arg.substring(split + 1));
+        }
+    }
+    
+    /**
+     * Gets how much of each player's game should be logged, from the --log option.
+     * @return Verbosity of the player logs, logging everything if not given.
+     */
+    LogVerbosity getLogVerbosity() {
+        String value = options.get("log");
+        if( value == null ) {
+            return LogVerbosity.full();
+        }
+        try{
+            return LogVerbosity.parse(value);
+        }catch( IllegalArgumentException e ) {
+            System.out.println( e.getMessage() + "\nEvery event will be logged.");
+            return LogVerbosity.full();
+        }
+    }
+    
+    /**
+     * Gets where the player logs should be written, from the --output option.
+     * @return Output of the player logs, kept in memory if not given.
+     */
+    LogOutput getLogOutput() {
+        String value = options.get("output");
+        if( value == null ) {
+            return LogOutput.MEMORY;
+        }
+        try{
+            return LogOutput.valueOf(value.trim().toUpperCase());
+        }catch( IllegalArgumentException e ) {
+            System.out.println( "Log output must be memory, stream or binary, not " + value
+                               + "\nLogs will be kept in memory.");
+            return LogOutput.MEMORY;
+        }
+    }
+    
+    /**
+     * Gets the kind of thread each player runs on, from the --threads option.
+     * @return Kind of player thread, platform threads if not given.
+     */
+    PlayerThreads getPlayerThreads() {
+        String value = options.get("threads");
+        if( value == null ) {
+            return PlayerThreads.PLATFORM;
+        }
+        try{
+            return PlayerThreads.valueOf(value.trim().toUpperCase());
+        }catch( IllegalArgumentException e ) {
+            System.out.println( "Player threads must be platform or virtual, not " + value
+                               + "\nPlayers will run on platform threads.");
+            return PlayerThreads.PLATFORM;
+        }
+    }
+    
+    /**
+     * Gets how the players are run, from the --engine option.
+     * @return Engine of the game, every player on their own thread if not given.
+     */
+    GameEngine getEngine() {
+        String value = options.get("engine");
+        if( value == null ) {
+            return GameEngine.THREADS;
+        }
+        try{
+            return GameEngine.valueOf(value.trim().toUpperCase());
+        }catch( IllegalArgumentException e ) {
+            System.out.println( "Game engine must be threads or lockstep, not " + value
+                               + "\nEvery player will run on their own thread.");
+            return GameEngine.THREADS;
+        }
+    }
+    
+    /**
+     * Gets the order players take their turns in with the lockstep engine, from the --order option.
+     * @return Turn order, round robin if not given.
+     */
+    TurnOrder getTurnOrder() {
+        String value = options.get("order");
+        if( value == null ) {
+            return TurnOrder.ROUND_ROBIN;
+        }
+        try{
+            return TurnOrder.parse(value);
+        }catch( IllegalArgumentException e ) {
+            System.out.println( "Turn order must be round-robin or shuffled, not " + value
+                               + "\nPlayers will take turns in order.");
+            return TurnOrder.ROUND_ROBIN;
+        }
+    }
+    
+    /**
+     * Gets how long a game may run before it is stopped, from the --timeout option.
+     * @return Time limit in seconds, 0 for no limit, or 60 seconds if not given.
+     */
+    long getTimeoutSeconds() {
+        return getSeconds("timeout", 60, true);
+    }
+    
+    /**
+     * Gets how long a game may go without any player making progress before it is
+     * stopped, from the --stall option.
+     * @return Time in seconds, 10 seconds if not given.
+     */
+    long getStallSeconds() {
+        return getSeconds("stall", 10, false);
+    }
+    
+    /**
+     * Gets a number of seconds from an option.
+     * @param name Name of the option.
+     * @param defaultSeconds Seconds used if the option is not given or not valid.
+     * @param zeroAllowed Whether 0 seconds is allowed.
+     * @return Number of seconds.
+     */
+    private long getSeconds( String name, long defaultSeconds, boolean zeroAllowed ) {
+        String value = options.get(name);
+        if( value == null ) {
+            return defaultSeconds;
+        }
+        try{
+            long seconds = Long.parseLong(value.trim());
+            if( seconds < (zeroAllowed ? 0 : 1) ) {
+                throw new NumberFormatException();
+            }
+            return seconds;
+        }catch( NumberFormatException e ) {
+            System.out.println( name.substring(0, 1).toUpperCase() + name.substring(1) + " must be a whole number of seconds "
+                               + (zeroAllowed ? "of 0 or more" : "above 0") + ", not " + value
+                               + "\n" + defaultSeconds + " seconds will be used.");
+            return defaultSeconds;
+        }
+    }
+    
+    /**
+     * Gets the seed of the players' random choices, from the --seed option.
+     * @return Seed of the game, or null if the game should not be seeded.
+     */
+    Long getSeed() {
+        String value = options.get("seed");
+        if( value == null ) {
+            return null;
+        }
+        try{
+            return Long.parseLong(value.trim());
+        }catch( NumberFormatException e ) {
+            System.out.println( "Seed must be a whole number, not " + value
+                               + "\nThe game will not be seeded.");
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the number of games to play as a batch, from the --batch option.
+     * @return Number of games, or 0 to play a single game with output files if not given.
+     */
+    int getBatchGames() {
+        String value = options.get("batch");
+        if( value == null ) {
+            return 0;
+        }
+        try{
+            int games = Integer.parseInt(value.trim());
+            if( games < 1 ) {
+                throw new NumberFormatException();
+            }
+            return games;
+        }catch( NumberFormatException e ) {
+            System.out.println( "Batch must be a number of games above 0, not " + value
+                               + "\nA single game will be played.");
+            return 0;
+        }
+    }
+    
+    /**
+     * Gets the number of black and white bag pairs, from the --pairs option.
+     * @return Number of bag pairs, or 3 if not given.
+     */
+    int getNumBagPairs() {
+        String value = options.get("pairs");
+        if( value == null ) {
+            return 3;
+        }
+        try{
+            int pairs = Integer.parseInt(value.trim());
+            if( pairs < 1 ) {
+                throw new NumberFormatException();
+            }
+            return pairs;
+        }catch( NumberFormatException e ) {
+            System.out.println( "Bag pairs must be a number above 0, not " + value
+                               + "\nThe game will have 3 bag pairs.");
+            return 3;
+        }
+    }
+    
+    /**
+     * Gets the number of segments each black bag is split across, from the --segments option.
+     * @return Number of segments, or 1 to keep each bag whole if not given.
+     */
+    int getBagSegments() {
+        String value = options.get("segments");
+        if( value == null ) {
+            return 1;
+        }
+        try{
+            int segments = Integer.parseInt(value.trim());
+            if( segments < 1 ) {
+                throw new NumberFormatException();
+            }
+            return segments;
+        }catch( NumberFormatException e ) {
+            System.out.println( "Segments must be a number above 0, not " + value
+                               + "\nEach bag will be kept whole.");
+            return 1;
+        }
+    }
+    
+    /**
+     * Gets how the pebbles inside the bags are stored, from the --storage option.
+     * @return Bag storage, an array of pebbles if not given.
+     */
+    BagStorage getBagStorage() {
+        String value = options.get("storage");
+        if( value == null ) {
+            return BagStorage.ARRAY;
+        }
+        try{
+            return BagStorage.valueOf(value.trim().toUpperCase());
+        }catch( IllegalArgumentException e ) {
+            System.out.println( "Bag storage must be list, array, histogram or atomic, not " + value
+                               + "\nThe pebbles will be kept in arrays.");
+            return BagStorage.ARRAY;
+        }
+    }
+    
+    /**
+     * Gets the number of stripes the discards to each white bag are kept in, from the --stripes option.
+     * @return Number of stripes, or 0 to add every discard straight to the bag if not given.
+     */
+    int getDepositStripes() {
+        String value = options.get("stripes");
+        if( value == null ) {
+            return 0;
+        }
+        try{
+            int stripes = Integer.parseInt(value.trim());
+            if( stripes < 0 ) {
+                throw new NumberFormatException();
+            }
+            return stripes;
+        }catch( NumberFormatException e ) {
+            System.out.println( "Stripes must be a number of 0 or more, not " + value
+                               + "\nDiscards will be added straight to the bags.");
+            return 0;
+        }
+    }
+    
+    /**
+     * Gets whether the player logs should be gzip compressed, from the --compress option.
+     * Only text logs are compressed, never the binary event file.
+     * @return Whether to compress the logs, not compressing if not given.
+     */
+    boolean compressesLogs() {
+        String value = options.get("compress");
+        if( value == null || value.trim().equalsIgnoreCase("none") ) {
+            return false;
+        }
+        if( !value.trim().equalsIgnoreCase("gzip") ) {
+            System.out.println( "Log compression must be gzip or none, not " + value
+                               + "\nLogs will not be compressed.");
+            return false;
+        }
+        return true;
+    }
+    
     /**
      * Exits if the input was "e" at command line prompts.
      * @param input Takes a string user input to evaluate.
@@ -72,6 +364,17 @@ class GameUserInput {
      * @throws IOException 
      */
     List<Integer> fillBag(char bagLetter, int gameNumPlayers) throws IOException{
+        return fillBag(String.valueOf(bagLetter), gameNumPlayers);
+    }
+    
+    /**
+     * Asks for a file to fill a black bag, by the bag's name.
+     * @param bagName Name of the bag to be filled by the file's pebbles.
+     * @param gameNumPlayers Number of players in the game holding these bags.
+     * @return Integer list of pebbles to be assigned by the bag.
+     * @throws IOException 
+     */
+    List<Integer> fillBag(String bagName, int gameNumPlayers) throws IOException{
         List<Integer> bag;
         Scanner fileReader = null;
         String fileLocation = null;
@@ -79,7 +382,7 @@ class GameUserInput {
         
         while( true ) {
             try{
-                System.out.println( "\nPlease provide file source to fill bag " + bagLetter
+                System.out.println( "\nPlease provide file source to fill bag " + bagName
                                    + ":\n");
                 fileLocation = keyboardInput.nextLine();
                 checkExitKey(fileLocation);
@@ -0,0 +1,86 @@
+package pebble;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a game played on its own threads, deciding when it should be stopped.
+ *
+ * A game is only stopped early when it stops making progress, that is when no player
+ * has filled their hand or played a turn for a whole window, however long it has run
+ * before. A deadline can also be set for games that keep playing but may never be won.
+ */
+final class GameWatchdog {
+    private static final long MAX_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * How a watched game ended.
+     */
+    enum Outcome {
+        /**
+         * Every player stopped by themselves.
+         */
+        FINISHED,
+
+        /**
+         * The game was still making progress when its deadline passed.
+         */
+        TIMED_OUT,
+
+        /**
+         * No player made progress for a whole window.
+         */
+        STALLED
+    }
+
+    private final PebbleGame game;
+    private final long timeoutNanos;
+    private final long stallNanos;
+
+    /**
+     * @param game The game to watch.
+     * @param timeoutNanos Time after which the game is stopped, Long.MAX_VALUE for no deadline.
+     * @param stallNanos Time without any progress after which the game is stopped.
+     */
+    GameWatchdog(PebbleGame game, long timeoutNanos, long stallNanos){
+        this.game = game;
+        this.timeoutNanos = timeoutNanos;
+        this.stallNanos = stallNanos;
+    }
+
+    /**
+     * Wait for every player of the game to stop, sampling the game's progress, or until
+     * the game should be stopped. The executor must have been shut down, and is left to
+     * the caller to stop.
+     * @param executor Executor the players run on.
+     * @return How the game ended.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    Outcome watch( ExecutorService executor ) throws InterruptedException {
+        long sampleNanos = Math.max(1, Math.min(stallNanos / 4, MAX_SAMPLE_NANOS));
+        long start = System.nanoTime();
+        long lastProgressTime = start;
+        long lastProgress = progress();
+        while( !executor.awaitTermination(sampleNanos, TimeUnit.NANOSECONDS) ) {
+            long now = System.nanoTime();
+            long progress = progress();
+            if( progress != lastProgress ) {
+                lastProgress = progress;
+                lastProgressTime = now;
+            } else if( now - lastProgressTime >= stallNanos ) {
+                return Outcome.STALLED;
+            }
+            if( now - start >= timeoutNanos ) {
+                return Outcome.TIMED_OUT;
+            }
+        }
+        return Outcome.FINISHED;
+    }
+
+    /**
+     * @return Number of hands filled and turns played, which only stops growing when the game is stuck or over.
+     */
+    private long progress() {
+        return game.getPlayersReady() + game.getTurnsPlayed();
+    }
+}
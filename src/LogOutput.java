@@ -0,0 +1,23 @@
+package pebble;
+
+/**
+ * Where the player logs are written.
+ */
+enum LogOutput {
+
+    /**
+     * Logs are kept in memory and written once the game has finished.
+     */
+    MEMORY,
+
+    /**
+     * Logs are written by a background thread while the game is running.
+     */
+    STREAM,
+
+    /**
+     * The events of every player are appended by a background thread to one binary
+     * event file, which GameEventFile turns back into text.
+     */
+    BINARY
+}
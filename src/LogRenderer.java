@@ -0,0 +1,94 @@
+package pebble;
+
+import java.util.List;
+
+/**
+ * Builds the text of the events recorded by a player, the way they appear in
+ * the player's output file.
+ *
+ * Only the player's name is needed, as the bags and the other players are named
+ * from their number, so a log can be rendered long after its game has gone.
+ */
+class LogRenderer implements PlayerLogWriter.Renderer {
+    private final String name;
+
+    /**
+     * @param name Name of the player whose events are rendered.
+     */
+    LogRenderer(String name){
+        this.name = name;
+    }
+
+    /**
+     * Build the text of a recorded event of the player, replaying its change to the hand.
+     * @param log Log holding the event.
+     * @param event Index of the event in the log.
+     * @param replayedHand The player's hand as it was before the event.
+     * @return Text of the event, or null if the event only records the hand.
+     */
+    @Override
+    public String describe( EventLog log, int event, List<Integer> replayedHand ) {
+        int pebble = log.pebble(event);
+        int bag = log.bag(event);
+        switch( log.type(event) ) {
+            case EventLog.SETUP:
+                return name + " Game setup. " + name +
+                       " is drawing their initial 10 pebbles.\r\n";
+            case EventLog.FILL_DRAW:
+                replayedHand.add(pebble);
+                return name + " has drawn a "
+                       + pebble + " from bag " + PebbleGame.blackBagName(bag) + "\r\n"
+                       + name + "'s hand is now: "
+                       + replayedHand + "\r\n";
+            case EventLog.HAND_FULL:
+                return name + " now has a full hand using 10 pebbles from bag  " +
+                       PebbleGame.blackBagName(bag) + "\r\n";
+            case EventLog.DRAW:
+                replayedHand.add(pebble);
+                return name + " has drawn a "
+                       + pebble + " from bag " + PebbleGame.blackBagName(bag) + "\r\n"
+                       + name + "'s hand is now: "
+                       + replayedHand
+                       + "  (hand value: " + log.handValue(event) + ")\r\n";
+            case EventLog.REFILL:
+                return name + " refilled" + " bag " + PebbleGame.blackBagName(bag)
+                       + " using all pebbles" + " in bag "
+                       + PebbleGame.whiteBagName(bag) + "\r\n";
+            case EventLog.DISCARD:
+                replayedHand.remove(log.detail(event));
+                return name + " has discarded a " +
+                       pebble + " to bag " + PebbleGame.whiteBagName(bag) +
+                       "\r\n" + name + "'s hand is now: "
+                       + replayedHand + "\r\n";
+            case EventLog.WIN:
+                return "\r\n" + name + " GOT A WINNING HAND FIRST WITH:\r\n"
+                       + replayedHand
+                       + "\r\nUsing: " + log.turn(event) + " turns\r\n";
+            case EventLog.LOSS:
+                return "\r\n" + PebbleGame.playerName(log.detail(event)) + " WON. This player (" +
+                       name + ") ended with hand:\r\n" +
+                       replayedHand + "\r\n" +
+                       "Using " + log.turn(event) + " turns.\r\n";
+            case EventLog.WAITING:
+                return name + " is now going to wait for other "
+                       + "players to finish filling their initial hand.\r\n";
+            case EventLog.TOLD_READY:
+                return name + " HAS BEEN TOLD THAT ALL PLAYERS ARE READY "
+                       + "THEREFORE IS STARTING TO PLAY.\r\n";
+            case EventLog.ANNOUNCED_READY:
+                return "\r\n" + name + " FINISHED FILLING THEIR HAND LAST SO" +
+                       " ANNOUNCED THAT ALL PLAYERS CAN START!\r\n";
+            case EventLog.HAND_RESET:
+                replayedHand.clear();
+                return null;
+            case EventLog.HAND_PEBBLE:
+                replayedHand.add(pebble);
+                return null;
+            case EventLog.INTERRUPTED:
+                return "Game was stopped before any player won, the game may be Impossible. "
+                       + "The log above represents what occurred so far.";
+            default:
+                throw new IllegalStateException("Unknown event type: " + log.type(event));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package pebble;
+
+/**
+ * How much of each player's game is written to their log.
+ * The end of game summary, with the winner, final hand and number of turns,
+ * is always logged.
+ */
+public final class LogVerbosity {
+
+    /**
+     * The amount of logging, from least to most.
+     */
+    public enum Level {
+        /** Only the end of game summary. */
+        OFF,
+        /** The game setup and the end of game summary, without any turns. */
+        SUMMARY,
+        /** The game setup, the initial hand and every Nth turn. */
+        SAMPLED,
+        /** Every event of the game. */
+        FULL
+    }
+
+    private final Level level;
+    private final int sampleInterval;
+
+    /**
+     * @param level Amount of logging.
+     * @param sampleInterval Number of turns between logged turns, when sampling.
+     */
+    private LogVerbosity(Level level, int sampleInterval){
+        this.level = level;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * @return Verbosity logging only the end of game summary.
+     */
+    public static LogVerbosity off() {
+        return new LogVerbosity(Level.OFF, 0);
+    }
+
+    /**
+     * @return Verbosity logging the game setup and the end of game summary.
+     */
+    public static LogVerbosity summary() {
+        return new LogVerbosity(Level.SUMMARY, 0);
+    }
+
+    /**
+     * @param interval Number of turns between logged turns.
+     * @return Verbosity logging every Nth turn.
+     */
+    public static LogVerbosity sampled(int interval) {
+        if( interval < 1 ) {
+            throw new IllegalArgumentException("Sample interval must be an integer above 0.");
+        }
+        return new LogVerbosity(Level.SAMPLED, interval);
+    }
+
+    /**
+     * @return Verbosity logging every event.
+     */
+    public static LogVerbosity full() {
+        return new LogVerbosity(Level.FULL, 1);
+    }
+
+    /**
+     * Read a verbosity written as "off", "summary", "full" or "sampled:N".
+     * @param value Text of the verbosity.
+     * @return The verbosity.
+     */
+    public static LogVerbosity parse(String value) {
+        String[] parts = value.trim().toLowerCase().split(":", 2);
+        switch( parts[0] ) {
+            case "off":
+                return off();
+            case "summary":
+                return summary();
+            case "full":
+                return full();
+            case "sampled":
+                if( parts.length == 2 ) {
+                    try{
+                        return sampled(Integer.parseInt(parts[1].trim()));
+                    } catch( NumberFormatException e ) {
+                        //Fall through to the error below.
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Log verbosity must be off, summary, full or sampled:N, not " + value);
+    }
+
+    /**
+     * @return The amount of logging.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Whether the setup of the game is logged.
+     */
+    boolean logsSetup() {
+        return level != Level.OFF;
+    }
+
+    /**
+     * @param turn Turn of the player, where 0 is filling the initial hand.
+     * @return Whether the draws and discards of the turn are logged.
+     */
+    boolean logsTurn(int turn) {
+        switch( level ) {
+            case FULL:
+                return true;
+            case SAMPLED:
+                return turn % sampleInterval == 0;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return level == Level.SAMPLED ? "sampled:" + sampleInterval : level.name().toLowerCase();
+    }
+}
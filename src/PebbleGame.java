@@ -1,32 +1,56 @@
 package pebble;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
 public final class PebbleGame {
-    private final BlackBag blackBagX;
-    private final BlackBag blackBagY;
-    private final BlackBag blackBagZ;
-    private final WhiteBag whiteBagA;
-    private final WhiteBag whiteBagB;
-    private final WhiteBag whiteBagC;
+    private static final long NOT_YET = Long.MIN_VALUE;
+    private final BlackBag[] blackBags;
+    private final WhiteBag[] whiteBags;
+    private final BagSelector bagSelector;
     private final int numPlayers;
     private final AtomicInteger numPlayersReady;
+    private final List<List<Integer>> initialContents;
+    private CountDownLatch gameReady;
+    private final AtomicLong firstFillTime;
+    private final AtomicLong firstTurnTime;
+    private final AtomicLong lastStopTime;
+    private final LongAdder turnsPlayed;
+    private final AtomicBoolean started;
+    private final AtomicInteger numPlayersFinished;
+    private volatile boolean stopRequested;
+    private volatile Runnable whenFinished;
+    private final AtomicReference<Throwable> failure;
     private final Winner winnerStatus;
-    private volatile boolean notifiedGameReady;
     private final Player[] allPlayers;
+    private LogVerbosity logVerbosity;
+    private SplittableRandom turnOrderRandom;
     
     /**
      * Make a game with filled black bags, empty white bags and a list of players.
@@ -37,23 +61,76 @@ public final class PebbleGame {
      * @param z List of integers to represent black bag Z.
      */
     public PebbleGame( int numPlayers, List<Integer> x, List<Integer> y, List<Integer> z ) {
+        this(numPlayers, BagStorage.LIST, x, y, z);
+    }
+    
+    /**
+     * Make a game with filled black bags, empty white bags and a list of players,
+     * storing the pebbles of every bag in the given way. The lists are kept to refill
+     * the bags when the game is reset, so they must not be changed.
+     * 
+     * @param numPlayers Number of players for this game instance.
+     * @param storage How the pebbles inside the bags are stored.
+     * @param x List of integers to represent black bag X.
+     * @param y List of integers to represent black bag Y.
+     * @param z List of integers to represent black bag Z.
+     */
+    public PebbleGame( int numPlayers, BagStorage storage, List<Integer> x, List<Integer> y, List<Integer> z ) {
+        this(numPlayers, storage, Arrays.asList(x, y, z));
+    }
+    
+    /**
+     * Make a game with any number of black and white bag pairs, storing the
+     * pebbles of every bag in the given way.
+     * 
+     * @param numPlayers Number of players for this game instance.
+     * @param storage How the pebbles inside the bags are stored.
+     * @param blackBagContents List of integers to represent each black bag, one per bag pair,
+     * kept to refill the bags when the game is reset, so they must not be changed.
+     */
+    public PebbleGame( int numPlayers, BagStorage storage, List<List<Integer>> blackBagContents ) {
+        if( blackBagContents.isEmpty() ) {
+            throw new IllegalArgumentException("A game needs at least one bag pair.");
+        }
         this.numPlayers = numPlayers;
-        blackBagX = new BlackBag( x, "X");
-        blackBagY = new BlackBag( y, "Y");
-        blackBagZ = new BlackBag( z, "Z");
-        
-        //Instantiate the whitebags with the same size as its paired black bag.
-        whiteBagA = new WhiteBag(new ArrayList<>(blackBagX.size()), "A");
-        whiteBagB = new WhiteBag(new ArrayList<>(blackBagY.size()), "B");
-        whiteBagC = new WhiteBag(new ArrayList<>(blackBagZ.size()), "C");
-        
-        //Pair every black bag with its white bag pair.
-        blackBagX.setPair(whiteBagA);
-        blackBagY.setPair(whiteBagB);
-        blackBagZ.setPair(whiteBagC);
+        int numBagPairs = blackBagContents.size();
+        blackBags = new BlackBag[numBagPairs];
+        whiteBags = new WhiteBag[numBagPairs];
+        int gamePebbles = 0;
+        for( List<Integer> contents : blackBagContents ) {
+            gamePebbles += contents.size();
+        }
+        
+        for (int i = 0; i < numBagPairs; i++) {
+            blackBags[i] = new BlackBag( storage.create(blackBagContents.get(i), gamePebbles), blackBagName(i), i);
+            //Instantiate the whitebag with the same size as its paired black bag.
+            whiteBags[i] = new WhiteBag( storage.createEmpty(blackBags[i].size(), gamePebbles), whiteBagName(i), i);
+            //Pair the black bag with its white bag pair.
+            blackBags[i].setPair(whiteBags[i]);
+        }
+        if( storage == BagStorage.LIST ) {
+            //The bags play with the lists given, so only they are copied to put back when the game is reset.
+            initialContents = new ArrayList<>(numBagPairs);
+            for( List<Integer> contents : blackBagContents ) {
+                initialContents.add(new ArrayList<>(contents));
+            }
+        } else {
+            initialContents = blackBagContents;
+        }
+        bagSelector = new BagSelector(blackBags);
 
         numPlayersReady = new AtomicInteger();
+        gameReady = new CountDownLatch(1);
+        firstFillTime = new AtomicLong(NOT_YET);
+        firstTurnTime = new AtomicLong(NOT_YET);
+        lastStopTime = new AtomicLong(NOT_YET);
+        turnsPlayed = new LongAdder();
+        started = new AtomicBoolean();
+        numPlayersFinished = new AtomicInteger();
+        logVerbosity = LogVerbosity.full();
+        turnOrderRandom = new SplittableRandom();
         winnerStatus = new Winner();
+        failure = new AtomicReference<>();
         
         //Create a new player instance for the number of players that the user has inputted.
         allPlayers = new Player[numPlayers];
@@ -62,42 +139,626 @@ public final class PebbleGame {
         }
     }
     
+    /**
+     * Put a finished game back to how it was made, so it can be played again without
+     * making a new game. The bags are refilled with their initial pebbles, and the bags,
+     * players, hands and log arrays are all reused. Logs are no longer sent to any writer
+     * or timed, and are kept in full again, while each player carries on with their random
+     * generator unless the game is seeded again.
+     * @throws IllegalStateException If the game has been started and not every player has stopped.
+     */
+    public void reset() {
+        if( started.get() && numPlayersFinished.get() != numPlayers ) {
+            throw new IllegalStateException("The game is still being played.");
+        }
+        for(int i = 0; i < blackBags.length; i++){
+            blackBags[i].reset(initialContents.get(i));
+        }
+        bagSelector.reset();
+        for( Player player : allPlayers ) {
+            player.reset();
+        }
+        winnerStatus.reset();
+        failure.set(null);
+        logVerbosity = LogVerbosity.full();
+        numPlayersReady.set(0);
+        numPlayersFinished.set(0);
+        gameReady = new CountDownLatch(1); //A latch cannot be reopened, it is read once the players are started.
+        firstFillTime.set(NOT_YET);
+        firstTurnTime.set(NOT_YET);
+        lastStopTime.set(NOT_YET);
+        turnsPlayed.reset();
+        stopRequested = false;
+        whenFinished = null;
+        started.set(false);
+    }
+    
+    /**
+     * Set how much of each player's game is logged, before the game starts.
+     * @param logVerbosity Verbosity of the player logs.
+     */
+    public void setLogVerbosity( LogVerbosity logVerbosity ) {
+        this.logVerbosity = logVerbosity;
+    }
+    
+    /**
+     * Seed the random choices of every player, before the game starts, so the choices
+     * each player makes follow the same sequence every time the same seed is used.
+     * Each player gets its own generator, split from one made with the seed,
+     * as does the order of turns when the game is played one turn at a time.
+     * @param seed Seed of the game.
+     */
+    public void setSeed( long seed ) {
+        SplittableRandom master = new SplittableRandom(seed);
+        for( Player player : allPlayers ) {
+            player.random = master.split();
+        }
+        turnOrderRandom = master.split();
+    }
+    
+    /**
+     * Keep the pebbles discarded to each white bag in stripes, before the game starts,
+     * so players discarding to the same bag only wait for each other when they share
+     * a stripe. The stripes are only added to a white bag when its black bag is refilled,
+     * and once every player has finished. The same pebbles end up in each bag, though
+     * in a different order, so a seeded game plays out differently from one without stripes.
+     * @param stripes Number of stripes per white bag, players sharing them in turn,
+     * or 0 to lock the white bag for every discard.
+     */
+    public void setDepositStripes( int stripes ) {
+        if( started.get() ) {
+            throw new IllegalStateException("Deposits cannot be striped once the game has started.");
+        }
+        for( WhiteBag bag : whiteBags ) {
+            bag.setDepositStripes(stripes);
+        }
+    }
+    
+    /**
+     * Add the pebbles every white bag keeps in stripes to the bag.
+     */
+    private void mergeDeposits() {
+        for( WhiteBag bag : whiteBags ) {
+            bag.lock();
+            try{
+                bag.mergeDeposits();
+            } finally {
+                bag.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Split the pebbles of every black bag across segments that are each locked on their
+     * own, before the game starts, so players drawing from the same bag at once rarely wait
+     * for each other. Each draw picks a random segment holding pebbles, so the pebbles are
+     * drawn close to, rather than exactly, uniformly, and a seeded game plays out differently
+     * from an unsplit one.
+     * @param segments Number of segments per black bag, 1 to lock the whole bag for each draw.
+     */
+    public void setBlackBagSegments( int segments ) {
+        if( started.get() ) {
+            throw new IllegalStateException("Bags cannot be split once the game has started.");
+        }
+        for( BlackBag bag : blackBags ) {
+            bag.setSegments(segments);
+        }
+    }
+    
+    /**
+     * Send every player's log to a writer, which writes them while the game is running.
+     * @param writer Writer of the player logs.
+     * @throws IOException If an output file cannot be opened.
+     */
+    void streamLogs( PlayerLogWriter writer ) throws IOException {
+        for( Player player : allPlayers ) {
+            writer.open(player.gameLog, player.name + ".txt", player.renderer);
+        }
+    }
+    
+    /**
+     * Send the events of every player to a single event file, which the writer
+     * appends to while the game is running.
+     * @param writer Writer of the event file.
+     * @param fileName Name of the event file.
+     * @throws IOException If the event file cannot be opened.
+     */
+    void streamEvents( PlayerLogWriter writer, String fileName ) throws IOException {
+        writer.openEventFile(fileName, numPlayers);
+        for( Player player : allPlayers ) {
+            writer.openEvents(player.gameLog, player.number);
+        }
+    }
+    
+    /**
+     * Play the game on an executor, without writing any output files.
+     * The executor must be able to run every player at once, such as a pool with a
+     * thread per player, as players wait for each other to fill their hands.
+     * Cancelling the returned future stops the game, and a player failing stops the
+     * game and completes the future with the player's exception.
+     * @param executor Executor to run the players on.
+     * @return Result of the game, completed once every player has stopped.
+     * @throws IllegalStateException If a black bag holds fewer than 11 pebbles for each player.
+     */
+    public CompletableFuture<GameResult> play( Executor executor ) {
+        checkBagSizes();
+        begin(true);
+        return launch(executor, null);
+    }
+    
+    /**
+     * Play the game on an executor, writing each player's log to a text file in a directory
+     * as the game runs. The result is only completed once every log has been written.
+     * @param executor Executor to run the players on, which must be able to run every player at once.
+     * @param outputDirectory Directory to write the player logs to, or null for no output files.
+     * @return Result of the game, completed once every player has stopped.
+     * @throws IOException If an output file cannot be opened, leaving the game unplayed.
+     * @throws IllegalStateException If a black bag holds fewer than 11 pebbles for each player.
+     */
+    public CompletableFuture<GameResult> play( Executor executor, Path outputDirectory ) throws IOException {
+        checkBagSizes();
+        begin(true);
+        PlayerLogWriter writer = null;
+        if( outputDirectory != null ) {
+            writer = new PlayerLogWriter(outputDirectory, 64, false);
+            try{
+                streamLogs(writer);
+            } catch( IOException e ) {
+                //No player has started, so leave the game to be played again or reset.
+                for( Player player : allPlayers ) {
+                    player.gameLog.setSink(null);
+                }
+                try{
+                    writer.close(); //Closes the files opened before the failure.
+                } catch( IOException closing ) {
+                    e.addSuppressed(closing);
+                }
+                started.set(false);
+                throw e;
+            }
+            writer.start();
+        }
+        return launch(executor, writer);
+    }
+    
+    /**
+     * Start every player on an executor, completing the result once the last player stops.
+     * @param executor Executor to run the players on.
+     * @param logWriter Writer of the player logs, closed once the game ends, or null.
+     * @return Result of the game.
+     */
+    private CompletableFuture<GameResult> launch( Executor executor, PlayerLogWriter logWriter ) {
+        CompletableFuture<GameResult> result = new CompletableFuture<>();
+        long startTime = System.nanoTime();
+        //Run by the last player to stop.
+        whenFinished = () -> {
+            long wallNanos = System.nanoTime() - startTime;
+            try{
+                if( logWriter != null ) {
+                    logWriter.close();
+                }
+                Throwable failed = failure.get();
+                if( failed != null ) {
+                    result.completeExceptionally(failed);
+                } else {
+                    result.complete(getResult(wallNanos));
+                }
+            } catch( IOException | RuntimeException e ) {
+                result.completeExceptionally(e);
+            }
+        };
+        result.whenComplete((gameResult, failure) -> {
+            if( result.isCancelled() ) {
+                stop();
+            }
+        });
+        for (Player player : allPlayers) {
+            executor.execute(player);
+        }
+        return result;
+    }
+    
+    /**
+     * Check that every black bag holds at least 11 pebbles for each player, as the rules
+     * ask, so no player runs out of pebbles filling their hand.
+     * @throws IllegalStateException If a black bag holds too few pebbles.
+     */
+    private void checkBagSizes() {
+        for( BlackBag bag : blackBags ) {
+            if( bag.size() < 11 * numPlayers ) {
+                throw new IllegalStateException("Bag " + bag.getName() + " holds " + bag.size() + " pebbles, "
+                        + numPlayers + " players need at least " + 11 * numPlayers + " in every black bag.");
+            }
+        }
+    }
+    
+    /**
+     * Stop the game as soon as possible, without a winner unless a player has already won.
+     * Players waiting for the game to start or for a bag stop straight away.
+     */
+    public void stop() {
+        stopRequested = true;
+        bagSelector.stop();
+        gameReady.countDown();
+    }
+    
+    /**
+     * Get the result of the game, once every player has stopped.
+     * @param wallNanos Time the game took.
+     * @return Result of the game.
+     */
+    GameResult getResult( long wallNanos ) {
+        int[] turns = new int[numPlayers];
+        List<List<Integer>> hands = new ArrayList<>(numPlayers);
+        for( Player player : allPlayers ) {
+            turns[player.number - 1] = player.turnCounter;
+            hands.add(player.hand);
+        }
+        return new GameResult(getWinner(), turns, hands, wallNanos);
+    }
+    
+    /**
+     * Mark the game as started, as a game can only be played once.
+     * @param shared Whether the players run on threads of their own, so the bags are locked.
+     */
+    private void begin( boolean shared ) {
+        if( !started.compareAndSet(false, true) ) {
+            throw new IllegalStateException("The game has already been played.");
+        }
+        for(int i = 0; i < blackBags.length; i++){
+            blackBags[i].setShared(shared);
+            whiteBags[i].setShared(shared);
+        }
+    }
+    
+    /**
+     * Start every player on an executor, which must be able to run all the players at once.
+     * @param executor Executor to run the players on.
+     */
+    void start( Executor executor ) {
+        begin(true);
+        for (Player player : allPlayers) {
+            executor.execute(player);
+        }
+    }
+    
+    /**
+     * Play the game on the calling thread, with the players taking turns one at a time,
+     * until a player wins or the game is stopped.
+     * Players fill their hands in order of their number, then take a turn each every round.
+     * No player ever waits for another thread, so a seeded game plays out the same every time.
+     * @param order Order of the players' turns in each round.
+     * @param timeLimitNanos Time after which the game is stopped.
+     * @return Whether a player won, rather than the game being stopped because it ran out
+     * of time, every black bag was empty, or the thread was interrupted.
+     */
+    public boolean playLockstep( TurnOrder order, long timeLimitNanos ) {
+        Lockstep steps = startLockstep(order, timeLimitNanos);
+        boolean goesOn = true;
+        while( goesOn ) {
+            goesOn = steps.step();
+        }
+        return winnerStatus.isClaimed();
+    }
+    
+    /**
+     * Start playing the game one step at a time, each step filling a player's hand or
+     * playing a single turn, as playLockstep does. The steps must be taken one after
+     * another, but each may be taken on a different thread. As only one player acts
+     * at a time, the bags are never locked.
+     * @param order Order of the players' turns in each round.
+     * @param timeLimitNanos Time after which the game is stopped.
+     * @return Steps of the game.
+     */
+    Lockstep startLockstep( TurnOrder order, long timeLimitNanos ) {
+        begin(false);
+        bagSelector.stop(); //No other player can fill a bag while one waits, so never wait.
+        return new Lockstep(order, System.nanoTime() + timeLimitNanos);
+    }
+    
+    /**
+     * A game played one step at a time, stepping each player through their states.
+     * Players fill their hands in the order of the first round, waiting until the last has
+     * filled theirs, then take a turn each every round, until a player wins or the game is stopped.
+     */
+    class Lockstep {
+        private final TurnOrder order;
+        private final long deadline;
+        private final Player[] turns;
+        private int nextPlayer;
+        private boolean playing;
+        private boolean stopped;
+        
+        /**
+         * @param order Order of the players' turns in each round.
+         * @param deadline Time at which the game is stopped.
+         */
+        private Lockstep(TurnOrder order, long deadline){
+            this.order = order;
+            this.deadline = deadline;
+            turns = allPlayers.clone();
+            order.arrange(turns, turnOrderRandom); //Order of filling hands, so no player always fills first.
+        }
+        
+        /**
+         * Take the next step of the game, finishing every player once the game is over.
+         * @return Whether the game goes on, false once every player has finished.
+         */
+        boolean step() {
+            if( !playing ) {
+                Player player = turns[nextPlayer++];
+                player.setUp();
+                if( player.arrive() ) {
+                    //The last player to fill their hand starts the game for the players waiting.
+                    for( Player waitingPlayer : allPlayers ) {
+                        if( waitingPlayer.state == PlayerState.WAITING ) {
+                            waitingPlayer.toldReady();
+                        }
+                    }
+                    if( !winnerStatus.isClaimed() ) {
+                        recordFirst(firstTurnTime);
+                    }
+                    playing = true;
+                }
+                return true;
+            }
+            if( !winnerStatus.isClaimed() && !stopped && !stopRequested ) {
+                if( nextPlayer == turns.length ) {
+                    order.arrange(turns, turnOrderRandom); //Start a new round.
+                    nextPlayer = 0;
+                }
+                if( !turns[nextPlayer++].playTurn() ) {
+                    stopped = true; //Every black bag is empty, so the game cannot go on.
+                } else if( nextPlayer == turns.length
+                           && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()) ) {
+                    stopped = true;
+                }
+                if( !winnerStatus.isClaimed() && !stopped && !stopRequested ) {
+                    return true;
+                }
+            }
+            boolean won = winnerStatus.isClaimed();
+            for( Player player : allPlayers ) {
+                player.finish(!won);
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Get the time from the first player starting to draw their initial hand, to the
+     * first turn of any player, once every player has filled their hand.
+     * @return Time taken to start the game in nanoseconds, or -1 if no turn has been played.
+     */
+    long getStartupNanos() {
+        long firstTurn = firstTurnTime.get();
+        return firstTurn == NOT_YET ? -1 : firstTurn - firstFillTime.get();
+    }
+    
+    /**
+     * Get the time from the winning draw to the last player stopping, once every player has stopped.
+     * @return Time taken for the game to stop in nanoseconds, or -1 if no player has won.
+     */
+    long getQuiesceNanos() {
+        if( !winnerStatus.isClaimed() ) {
+            return -1;
+        }
+        return Math.max(lastStopTime.get() - winnerStatus.claimTime, 0);
+    }
+    
+    /**
+     * @return Number of the player who won, or 0 if no player has won.
+     */
+    int getWinner() {
+        Player winner = winnerStatus.get();
+        return winner == null ? 0 : winner.number;
+    }
+    
+    /**
+     * @return Number of turns the winner played before winning, or -1 if no player has won.
+     */
+    int getWinningTurns() {
+        Player winner = winnerStatus.get();
+        return winner == null ? -1 : winner.turnCounter;
+    }
+    
+    /**
+     * Get the time from the first player starting to draw their initial hand, to the winning draw.
+     * @return Time taken to win in nanoseconds, or -1 if no player has won.
+     */
+    long getTimeToWinNanos() {
+        if( !winnerStatus.isClaimed() ) {
+            return -1;
+        }
+        return winnerStatus.claimTime - firstFillTime.get();
+    }
+    
+    /**
+     * Record the time of the first occurrence of something, if it has not happened yet.
+     * @param first Time of the first occurrence.
+     */
+    private static void recordFirst( AtomicLong first ) {
+        if( first.get() == NOT_YET ) {
+            first.compareAndSet(NOT_YET, System.nanoTime());
+        }
+    }
+    
+    /**
+     * Get the number of turns played by all the players so far, which can be read while the game runs.
+     * @return Total number of turns.
+     */
+    long getTurnsPlayed() {
+        return turnsPlayed.sum();
+    }
+    
+    /**
+     * @return Number of players who have filled their initial hand.
+     */
+    int getPlayersReady() {
+        return numPlayersReady.get();
+    }
+    
+    /**
+     * Describe where each player is in the game, which can be read while the game runs.
+     * A running player's turns and hand value may be a turn behind.
+     * @return One line per player, with their turns, hand value and bag.
+     */
+    String describePlayers() {
+        StringBuilder text = new StringBuilder();
+        for( Player player : allPlayers ) {
+            BlackBag bag = player.currentBag;
+            text.append(player.name).append(": ").append(player.turnCounter).append(" turns, hand value ")
+                .append(player.handValue).append(", ")
+                .append(bag == null ? "no bag yet" : "last drew from bag " + bag.getName());
+            PlayerState state = player.state;
+            if( state == PlayerState.WAITING ) {
+                text.append(", waiting for the other players");
+            } else if( state == PlayerState.DONE ) {
+                text.append(", finished");
+            } else if( player.choosingBag ) {
+                text.append(", waiting for a bag");
+            }
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Name of a player.
+     * @param number Number of the player, starting from 1.
+     * @return Name of the player.
+     */
+    static String playerName( int number ) {
+        return "Player " + number;
+    }
+    
+    /**
+     * Name of a black bag, the first three pairs keep the names X, Y and Z.
+     * @param pair Index of the bag pair.
+     * @return Name of the black bag in that pair.
+     */
+    static String blackBagName( int pair ) {
+        return pair < 3 ? String.valueOf((char) ('X' + pair)) : "X" + (pair + 1);
+    }
+    
+    /**
+     * Name of a white bag, the first three pairs keep the names A, B and C.
+     * @param pair Index of the bag pair.
+     * @return Name of the white bag in that pair.
+     */
+    static String whiteBagName( int pair ) {
+        return pair < 3 ? String.valueOf((char) ('A' + pair)) : "A" + (pair + 1);
+    }
+    
     static class Winner{
-        private volatile Boolean noWinner;
-        private Player winner;
+        private final AtomicReference<Player> winner;
+        private volatile long claimTime;
         
         /**
          * Create a new winner class, without a winner.
          */
         private Winner(){
-            noWinner = true;
+            winner = new AtomicReference<>();
         }
         
         /**
-         * Sets the state of the class to when a winner has been found.
-         * @param winner The winner of the game
+         * Claim the win for a player, which only the first claim gets.
+         * @param player The player with a winning hand.
+         * @return Whether the player is the winner of the game.
          */
-        private void setWinner(Player winner){
-            noWinner = false;
-            this.winner = winner;
+        private boolean claim(Player player){
+            if( winner.get() == null && winner.compareAndSet(null, player) ) {
+                claimTime = System.nanoTime();
+                return true;
+            }
+            return false;
         }
+        
+        /**
+         * Forget the winner, for a new game.
+         */
+        private void reset(){
+            winner.set(null);
+            claimTime = 0;
+        }
+        
+        /**
+         * @return Whether a player has won.
+         */
+        private boolean isClaimed(){
+            return winner.get() != null;
+        }
+        
+        /**
+         * @return The winner of the game, or null if no player has won yet.
+         */
+        private Player get(){
+            return winner.get();
+        }
+    }
+    
+    /**
+     * Where a player is in their game. Every player fills their hand, waits for the
+     * other players to fill theirs, plays until the game is over, then is done.
+     */
+    enum PlayerState {
+        FILLING,
+        WAITING,
+        PLAYING,
+        DONE
     }
     
     class Player implements Runnable {
         private final List<Integer> hand;
         private int handValue;
         private WhiteBag nextDepositBag;
+        private final int number;
         private final String name;
         private int turnCounter;
-        private final List<String> gameLog;
+        private final EventLog gameLog;
+        private final LogRenderer renderer;
+        private boolean handLogged;
+        private SplittableRandom random;
+        private volatile BlackBag currentBag;
+        private volatile boolean choosingBag;
+        private volatile PlayerState state;
         
         /**
          * @param number The number of this player relative to the game, used for naming.
          */
         Player(int number) {
             hand = new ArrayList<>();
-            name = "Player " + number;
-            gameLog = new ArrayList<>();
+            this.number = number;
+            name = playerName(number);
+            gameLog = new EventLog(64);
+            renderer = new LogRenderer(name);
+            handLogged = true;
+            random = new SplittableRandom();
+            state = PlayerState.FILLING;
+        }
+        
+        /**
+         * Empty the player's hand and log, for a new game.
+         */
+        void reset() {
+            hand.clear();
+            handValue = 0;
+            nextDepositBag = null;
+            turnCounter = 0;
+            gameLog.clear();
+            gameLog.setSink(null); //Records are no longer sent to the last game's writer.
+            gameLog.setTimed(false); //Only timed again if the next game is written to an event file.
+            handLogged = true;
+            currentBag = null;
+            choosingBag = false;
+            state = PlayerState.FILLING;
+        }
+        
+        /**
+         * @return Where the player is in their game.
+         */
+        PlayerState getState() {
+            return state;
         }
         
         /**
@@ -112,28 +773,29 @@ public final class PebbleGame {
          */
         void fillHand(){
             BlackBag bag = chooseRandomBag(); //Choose a random bag to build starting hand with.
+            currentBag = bag;
             int pebbleValue;
+            boolean logging = logsTurn();
             
             //Draw 10 pebbles to fill the players hand.
             for(int i = 0; i < 10; i++){ 
                
                 //Get the pebble from the bag and remove from the bag.
-                synchronized(bag) {
-                    int pebbleIndex = ThreadLocalRandom.current().nextInt( 0, bag.size() ); //Choose a random pebble.
-                    pebbleValue = bag.get(pebbleIndex);
-                    bag.remove( pebbleIndex );
+                pebbleValue = bag.draw(random);
+                if( pebbleValue == BlackBag.EMPTY ) {
+                    throw new IllegalStateException("Bag " + bag.getName() + " ran out of pebbles while filling a hand.");
                 }
                 //Add the pebble to the player hand, and recalculate hand value.
                 hand.add(pebbleValue);
                 handValue += pebbleValue;
-                gameLog.add(name + " has drawn a " 
-                        + pebbleValue + " from bag " + bag.getName() + "\r\n"
-                        + name + "'s hand is now: "
-                        + hand + "\r\n");
+                if( logging ) {
+                    gameLog.record(EventLog.FILL_DRAW, pebbleValue, bag.getId(), turnCounter, handValue, 0);
+                }
             }
             checkWon(); //Check if the player has drawn a winning hand.
-            gameLog.add( name + " now has a full hand using 10 pebbles from bag  " + 
-                       bag.getName() + "\r\n");
+            if( logVerbosity.logsSetup() ) {
+                gameLog.record(EventLog.HAND_FULL, 0, bag.getId(), turnCounter, handValue, 0);
+            }
             nextDepositBag = bag.getPair(); //Set the bag for the first discard.
         }
         
@@ -142,96 +804,132 @@ public final class PebbleGame {
          * @return The black bag chosen.
          */
         BlackBag chooseRandomBag(){
-            
-            BlackBag bag = null;
-            int bagNum = ThreadLocalRandom.current().nextInt(1, 4);
-
-            switch( bagNum ) {
-                case 1:
-                    bag = blackBagX;
-                    break;
-                case 2:
-                    bag = blackBagY;
-                    break;
-                case 3:
-                    bag = blackBagZ;
-                    break;
-                }
-            
-            return bag; 
+            return blackBags[random.nextInt(blackBags.length)];
         }
         
         /**
          * Draw a pebble from one of the black bags, and check for a winning hand.
          */
         void draw() {
-            BlackBag bag = null;
-            do {
-                bag = chooseRandomBag();
-            } while ( bag.size() == 0 );
+            BlackBag bag;
             
-            int drawnPebbleValue;
-            
-            synchronized(bag) {
-                int pebbleIndex = ThreadLocalRandom.current().nextInt( 0, bag.size() ); //Choose a random pebble from the bag.
-                drawnPebbleValue = bag.get(pebbleIndex); //Find the pebble and retrieve it's value.
-                //Add the pebble to the hand and remove from the bag.
-                hand.add(drawnPebbleValue);
-                handValue += drawnPebbleValue;
-                bag.remove( pebbleIndex );
-                
-                gameLog.add(name + " has drawn a "
-                        + drawnPebbleValue + " from bag " + bag.getName() + "\r\n"
-                        + name + "'s hand is now: "
-                        + hand
-                        + "  (hand value: " + handValue + ")\r\n");
-                
-                //Check whether the player has won as soon as possible.
-                checkWon();
-                
-                //If the bag is now empty, refill the black bag from the paired white bag.
-                if( bag.size() == 0 ) {
-                    bag.refill();
-                    gameLog.add(name + " refilled" + " bag " + bag.getName() 
-                                + " using all pebbles" + " in bag " 
-                                + bag.getPair().getName() + "\r\n");
+            while( true ) {
+                choosingBag = true;
+                try{
+                    bag = bagSelector.choose(random); //Choose a random bag with pebbles, waiting while there are none.
+                } catch( InterruptedException e ) {
+                    Thread.currentThread().interrupt(); //Leave the turn unfinished, so the player stops playing.
+                    return;
+                } finally {
+                    choosingBag = false;
+                }
+                if( bag == null ) {
+                    return; //Another player has won while this player waited for a bag.
+                }
+                currentBag = bag;
+                int pebbleValue = bag.draw(random);
+                if( pebbleValue == BlackBag.EMPTY ) {
+                    //Another player emptied the bag since it was chosen, refill it unless they have.
+                    refill(bag, logsTurn());
+                    continue;
                 }
+                addDrawn(bag, pebbleValue);
+                break;
             }
             //Record the next bag to deposit a pebble to.
             nextDepositBag = bag.getPair();
         }
+        
+        /**
+         * Add a pebble drawn from a black bag to the hand, refilling the bag if the draw emptied it.
+         * @param bag The black bag drawn from.
+         * @param drawnPebbleValue Value of the pebble drawn.
+         */
+        private void addDrawn( BlackBag bag, int drawnPebbleValue ) {
+            boolean logging = logsTurn();
+            //Add the pebble to the hand.
+            hand.add(drawnPebbleValue);
+            handValue += drawnPebbleValue;
+            
+            if( logging ) {
+                gameLog.record(EventLog.DRAW, drawnPebbleValue, bag.getId(), turnCounter, handValue, 0);
+            }
+            
+            //Check whether the player has won as soon as possible.
+            checkWon();
+            
+            //If the bag is now empty, refill the black bag from the paired white bag.
+            //The size is read without the lock, so it is checked again once the bag is locked.
+            if( bag.size() == 0 ) {
+                refill(bag, logging);
+            }
+        }
+        
+        /**
+         * Refill an empty black bag from its paired white bag, unless another player already has.
+         * @param bag The black bag.
+         * @param logging Whether to log the refill.
+         */
+        private void refill( BlackBag bag, boolean logging ) {
+            bag.lock();
+            try{
+                if( bag.size() != 0 ) {
+                    return;
+                }
+                bag.refill();
+                if( logging ) {
+                    gameLog.record(EventLog.REFILL, 0, bag.getId(), turnCounter, handValue, 0);
+                }
+                //If the paired white bag was empty too, stop choosing this bag.
+                if( bag.size() == 0 ) {
+                    bagSelector.markEmpty(bag);
+                    //A deposit made after the white bag was emptied, but before the bag was
+                    //marked, has already been reported, so choose the bag again for it. The
+                    //white bag is locked to see every deposit made into it under its lock.
+                    bag.getPair().lock();
+                    try{
+                        if( bag.getPair().hasPebbles() ) {
+                            bagSelector.markNonEmpty(bag);
+                        }
+                    } finally {
+                        bag.getPair().unlock();
+                    }
+                }
+            } finally {
+                bag.unlock();
+            }
+        }
+        
         /**
          * Discard a random pebble from the player hand, to the correct bag.
          */
         void discard() {
+            boolean logging = logsTurn();
              //Pick a random index to discard a pebble from.
-            int pebbleDiscardIndex = ThreadLocalRandom.current().nextInt(0, hand.size());
+            int pebbleDiscardIndex = random.nextInt(0, hand.size());
             int pebbleValue = hand.get(pebbleDiscardIndex); //Get the pebble from the chosen index.
             hand.remove(pebbleDiscardIndex); //Remove the pebble from the player's hand.
             handValue -= pebbleValue;
             
-            synchronized( nextDepositBag ){
-                nextDepositBag.add(pebbleValue); //Add the pebble to the correct white bag.
+            //Add the pebble to the correct white bag, and if it was empty, the paired black
+            //bag can be refilled, even if it was empty too.
+            if( nextDepositBag.deposit(number, pebbleValue) ) {
+                bagSelector.markRefillable(nextDepositBag.getPair());
+            }
+            if( logging ) {
+                gameLog.record(EventLog.DISCARD, pebbleValue, nextDepositBag.getId(), turnCounter, handValue, pebbleDiscardIndex);
             }
-            gameLog.add(name + " has discarded a " + 
-                        pebbleValue + " to bag " + nextDepositBag.getName() +
-                        "\r\n" + name + "'s hand is now: "
-                        + hand + "\r\n");
         }
         
         /**
          * Evaluates whether the player has a winning hand, if so, exclaim this to the game.
          */
         void checkWon() {
-            if( getHandValue() == 100 && winnerStatus.noWinner ) {
-                synchronized(winnerStatus){
-                    if (getHandValue() == 100 && winnerStatus.noWinner) { //if the player has a winning hand and no other player has already won
-                        winnerStatus.setWinner(this);
-                        gameLog.add("\r\n" + name + " GOT A WINNING HAND FIRST WITH:\r\n"
-                                + hand
-                                + "\r\nUsing: " + turnCounter + " turns\r\n");
-                    }
-                }
+            //If the player has a winning hand and no other player has already won.
+            if( getHandValue() == 100 && winnerStatus.claim(this) ) {
+                bagSelector.stop(); //Wake any player waiting for a bag, so they see the win straight away.
+                logHand();
+                gameLog.record(EventLog.WIN, turnCounter, handValue);
             }
         }
              
@@ -239,8 +937,7 @@ public final class PebbleGame {
          * If the player is interrupted, they do not start another turn.
          */
         void interrupted() {
-            gameLog.add("Game took over 1 minute to finish, the game may be Impossible." 
-                             + "The log above represents what occurred so far.");
+            gameLog.record(EventLog.INTERRUPTED, turnCounter, handValue);
         }
         
         /**
@@ -248,89 +945,262 @@ public final class PebbleGame {
          */
         @Override
         public void run() {
-            gameLog.add( name + " Game setup. " + name +
-                                " is drawing their initial 10 pebbles.\r\n");
-            fillHand(); //Draw initial hand of 10 pebbles.
-            numPlayersReady.getAndIncrement();
-            
-                //Check if all players have finished filling their hand.
-            if (PebbleGame.this.numPlayersReady.get() != PebbleGame.this.numPlayers) {
-                gameLog.add(name + " is now going to wait for other "
-                        + "players to finish filling their initial hand.\r\n");
-                synchronized (PebbleGame.this.numPlayersReady) {
+            boolean stopped = true;
+            try{
+                setUp();
+                if( !arrive() ) {
                     try {
-                        //If all players are not ready, wait for them.
-                        PebbleGame.this.numPlayersReady.wait();
-                        gameLog.add(name + " HAS BEEN TOLD THAT ALL PLAYERS ARE READY "
-                                + "THEREFORE IS STARTING TO PLAY.\r\n");
+                        //Wait for every other player to fill their hand.
+                        gameReady.await();
+                        //A game stopped while the player waited never started for them.
+                        if( !stopRequested ) {
+                            toldReady();
+                        }
                     } catch (InterruptedException e) {
-                        interrupted();
+                        Thread.currentThread().interrupt(); //Stop before the first turn.
                     }
                 }
+                //Keep playing until a winner is announced.
+                if( !winnerStatus.isClaimed() && !Thread.currentThread().isInterrupted() && !stopRequested ) {
+                    recordFirst(firstTurnTime);
+                }
+                while(!winnerStatus.isClaimed() && !Thread.currentThread().isInterrupted() && !stopRequested) {
+                    playTurn();
+                }
+                //Interrupted if the game takes too long to run, or stopped by the caller.
+                stopped = Thread.currentThread().isInterrupted() || !winnerStatus.isClaimed();
+            } catch( RuntimeException | Error e ) {
+                //Stop the game, releasing any player waiting for this one to fill their hand.
+                failure.compareAndSet(null, e);
+                stop();
+            } finally {
+                finish(stopped);
+            }
+        }
+        
+        /**
+         * Set up the player's game, drawing the initial hand of 10 pebbles.
+         */
+        void setUp() {
+            if( logVerbosity.logsSetup() ) {
+                gameLog.record(EventLog.SETUP, turnCounter, handValue);
             }
-                //If all players are ready, and they have not already been notified to start, notify them.
-            else if (!PebbleGame.this.notifiedGameReady) {
-                synchronized(PebbleGame.this.numPlayersReady) {
-                    PebbleGame.this.numPlayersReady.notifyAll();
+            recordFirst(firstFillTime);
+            fillHand(); //Draw initial hand of 10 pebbles.
+        }
+        
+        /**
+         * Report that the player has filled their hand. The last player to fill
+         * their hand starts the game for everyone.
+         * @return Whether this was the last player, so the game has started.
+         */
+        boolean arrive() {
+            state = PlayerState.WAITING;
+            if( numPlayersReady.incrementAndGet() == numPlayers ) {
+                state = PlayerState.PLAYING;
+                gameReady.countDown();
+                if( logVerbosity.logsSetup() && !stopRequested ) {
+                    gameLog.record(EventLog.ANNOUNCED_READY, turnCounter, handValue);
                 }
-                PebbleGame.this.notifiedGameReady = true;
-                gameLog.add( "\r\n" + name + " FINISHED FILLING THEIR HAND LAST SO" +
-                             " ANNOUNCED THAT ALL PLAYERS CAN START!\r\n");
+                return true;
+            }
+            if( logVerbosity.logsSetup() ) {
+                gameLog.record(EventLog.WAITING, turnCounter, handValue);
+            }
+            return false;
+        }
+        
+        /**
+         * Record that the player has been told every player is ready.
+         */
+        void toldReady() {
+            state = PlayerState.PLAYING;
+            if( logVerbosity.logsSetup() ) {
+                gameLog.record(EventLog.TOLD_READY, turnCounter, handValue);
             }
-            //Keep playing until a winner is announced.
-            while(winnerStatus.noWinner && !Thread.currentThread().isInterrupted()) {
-                discard();
-                draw();
-                turnCounter++;
+        }
+        
+        /**
+         * Play a turn, discarding a pebble then drawing another. No turn is started once
+         * another player has won, but a turn started before the win is played out, so
+         * the hand always ends up with 10 pebbles and only whole turns are counted.
+         * @return Whether the player drew a pebble, which only fails once every black bag is empty.
+         */
+        boolean playTurn() {
+            if( winnerStatus.isClaimed() ) {
+                return true; //The hand is still full, the game is just over.
             }
-            if( Thread.currentThread().isInterrupted() ){ //Interrupted if the game takes too long to run.
+            discard();
+            draw();
+            turnCounter++;
+            turnsPlayed.increment();
+            return hand.size() == 10;
+        }
+        
+        /**
+         * End the player's game, recording the result and handing over the rest of the log.
+         * @param stopped Whether the game was stopped before anyone won.
+         */
+        void finish( boolean stopped ) {
+            if( stopped ){
                 interrupted();
             }
             //If the announced winner is not this player, add this to the log.
-            else if(winnerStatus.winner != this) {
-                gameLog.add( "\r\n" + winnerStatus.winner.name + " WON. This player (" + 
-                             name + ") ended with hand:\r\n" +
-                              hand + "\r\n" + 
-                              "Using " + turnCounter + " turns.\r\n");
+            else if(winnerStatus.get() != this) {
+                logHand();
+                gameLog.record(EventLog.LOSS, 0, -1, turnCounter, handValue, winnerStatus.get().number);
+            }
+            gameLog.flush(); //Hand any events not yet written to the log writer.
+            state = PlayerState.DONE;
+            lastStopTime.accumulateAndGet(System.nanoTime(), Math::max);
+            Runnable lastToFinish = whenFinished;
+            if( numPlayersFinished.incrementAndGet() == numPlayers ) {
+                mergeDeposits(); //No player is left to deposit, so every white bag can be shown whole.
+                if( lastToFinish != null ) {
+                    lastToFinish.run();
+                }
+            }
+        }
+        
+        /**
+         * Decide whether the draws and discards of the current turn are logged.
+         * A logged turn first makes sure the log can replay the hand, and a turn
+         * that is left out means the log no longer can.
+         * @return Whether the current turn is logged.
+         */
+        private boolean logsTurn() {
+            if( !logVerbosity.logsTurn(turnCounter) ) {
+                handLogged = false;
+                return false;
+            }
+            logHand();
+            return true;
+        }
+        
+        /**
+         * Record the whole hand in the log, if changes to it have been left out of the log.
+         */
+        private void logHand() {
+            if( !handLogged ) {
+                gameLog.record(EventLog.HAND_RESET, turnCounter, handValue);
+                for( int pebble : hand ) {
+                    gameLog.record(EventLog.HAND_PEBBLE, pebble, -1, turnCounter, handValue, 0);
+                }
+                handLogged = true;
             }
         }
+        
+        /**
+         * Get the text of the player's game log, one entry per recorded event.
+         * The text of each entry is only built as the log is iterated.
+         * @return Text of every recorded event, in order.
+         */
+        Iterable<String> getGameLog() {
+            return () -> new Iterator<String>() {
+                private final List<Integer> replayedHand = new ArrayList<>();
+                private int event;
+                private String nextEntry;
+                
+                @Override
+                public boolean hasNext() {
+                    //Skip the events that only record the hand.
+                    while( nextEntry == null && event < gameLog.size() ) {
+                        nextEntry = renderer.describe(gameLog, event++, replayedHand);
+                    }
+                    return nextEntry != null;
+                }
+                
+                @Override
+                public String next() {
+                    if( !hasNext() ) {
+                        throw new NoSuchElementException();
+                    }
+                    String entry = nextEntry;
+                    nextEntry = null;
+                    return entry;
+                }
+            };
+        }
     }
 
+    /**
+     * Write a player's log to a gzip compressed file, one entry per line like Files.write.
+     * @param path Path of the compressed file.
+     * @param gameLog Entries of the log.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeCompressedLog( Path path, Iterable<String> gameLog ) throws IOException {
+        try( Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024), StandardCharsets.UTF_8)) ) {
+            for( String entry : gameLog ) {
+                writer.write(entry);
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+    
     public static void main(String[] args) throws IOException, FileNotFoundException { 
         GameUserInput userInput = new GameUserInput();
+        userInput.setCommandLineOptions(args);
         userInput.setUpKeyboardInput();
-        //Ask for the number of players.
+        //Ask for the number of players, the number of bag pairs is an option.
         int numPlayers = userInput.getNumPlayers();
+        int numBagPairs = userInput.getNumBagPairs();
         
         //Ask the player for the pebble files, and setup a game instance with them.
-        PebbleGame game = new PebbleGame(numPlayers, userInput.fillBag('X', numPlayers), 
-                                        userInput.fillBag('Y', numPlayers),
-                                        userInput.fillBag('Z', numPlayers));
-        
-        //Clear up the System.in scanner to free up resources.
-        userInput.shutdown();
-        
-        //Execute all the players as threads to play the game simultaneously.
-        ExecutorService es = Executors.newFixedThreadPool(game.numPlayers);
-        for (Player player : game.allPlayers) {
-            es.execute( new Thread(player));
+        List<List<Integer>> blackBagContents = new ArrayList<>(numBagPairs);
+        for (int i = 0; i < numBagPairs; i++) {
+            blackBagContents.add(userInput.fillBag(blackBagName(i), numPlayers));
         }
-        es.shutdown();
         
-        //Main thread waits 20s, or until the game finishes.
-        try{
-            es.awaitTermination(1, TimeUnit.MINUTES);
-        } catch( InterruptedException e ) {
-            e.printStackTrace();
-        } 
+        //Stop straight away if no hand can win, rather than letting the game run out of time.
+        long analyzeStart = System.nanoTime();
+        if( !HandAnalyzer.winningHandExists(blackBagContents) ) {
+            userInput.shutdown();
+            System.out.println(String.format("No hand of 10 pebbles from these bags weighs 100, so no player can"
+                    + " ever win.\nThe game is impossible and has not been played (checked in %.3fms).",
+                    (System.nanoTime() - analyzeStart) / 1e6));
+            return;
+        }
         
-        //If the game did not finish after 1 minute, stop the game.
-        if(!es.isTerminated()){
-            es.shutdownNow();
-            System.out.println("Simulation ran for over 1 minute. \nSimulation" + 
-                    " could be impossible, it has been interrupted for log analysis.");
+        long timeoutSeconds = userInput.getTimeoutSeconds();
+        long timeoutNanos = timeoutSeconds == 0 ? Long.MAX_VALUE : TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        int batchGames = userInput.getBatchGames();
+        if( batchGames > 0 ) {
+            //Play many games at once without any output files, and report their statistics.
+            userInput.shutdown();
+            Long seed = userInput.getSeed();
+            long batchSeed = seed != null ? seed : new SplittableRandom().nextLong(); //Reported, so the batch can be repeated.
+            ForkJoinPool pool = new ForkJoinPool();
+            try{
+                GameBatch.Result result = GameBatch.run(pool, numPlayers, blackBagContents, batchGames, batchSeed, timeoutNanos);
+                System.out.print(result.report());
+            } finally {
+                pool.shutdown();
+            }
+            return;
+        }
+        PebbleGame game = new PebbleGame(numPlayers, userInput.getBagStorage(), blackBagContents);
+        game.setLogVerbosity(userInput.getLogVerbosity());
+        game.setBlackBagSegments(userInput.getBagSegments());
+        game.setDepositStripes(userInput.getDepositStripes());
+        Long seed = userInput.getSeed();
+        if( seed != null ) {
+            game.setSeed(seed);
+        }
+        LogOutput logOutput = userInput.getLogOutput();
+        boolean compressLogs = userInput.compressesLogs();
+        GameEngine engine = userInput.getEngine();
+        TurnOrder turnOrder = userInput.getTurnOrder();
+        long stallSeconds = userInput.getStallSeconds();
+        PlayerThreads playerThreads = userInput.getPlayerThreads();
+        if( playerThreads == PlayerThreads.VIRTUAL && !PlayerThreads.virtualThreadsAvailable() ) {
+            System.out.println("Virtual threads need Java 21, players will run on small platform threads instead.");
         }
         
+        //Clear up the System.in scanner to free up resources.
+        userInput.shutdown();
+        
         //Make a directory for the output files, and remove any old output files.
         File outputDirectory = new File("playerOutputs/");
         if(!outputDirectory.mkdir()){
@@ -339,11 +1209,83 @@ public final class PebbleGame {
             }
         }
         
-        //Write the output files to the created directory.
-        for( Player player : game.allPlayers ) {
-            Path path = Paths.get("playerOutputs/" + player.name + ".txt");
-            Files.write(path, player.gameLog, StandardCharsets.UTF_8);
+        //Write the player logs while the game is running, if asked to.
+        PlayerLogWriter logWriter = null;
+        if( logOutput == LogOutput.STREAM ) {
+            logWriter = new PlayerLogWriter(Paths.get("playerOutputs/"), 64, compressLogs);
+            game.streamLogs(logWriter);
+            logWriter.start();
+        } else if( logOutput == LogOutput.BINARY ) {
+            //One event file for every player, rather than a text file each.
+            logWriter = new PlayerLogWriter(Paths.get("playerOutputs/"), 64, false);
+            game.streamEvents(logWriter, "game.events");
+            logWriter.start();
+        }
+        
+        if( engine == GameEngine.LOCKSTEP ) {
+            //Play every turn on this thread, one player at a time.
+            if( !game.playLockstep(turnOrder, timeoutNanos) ) {
+                System.out.println("Simulation ran for over " + timeoutSeconds + " seconds or ran out of pebbles. \nSimulation" + 
+                        " could be impossible, it has been stopped for log analysis.");
+            }
+        } else {
+            //Execute all the players as threads to play the game simultaneously.
+            ExecutorService es = playerThreads.newExecutor(game.numPlayers);
+            game.start(es);
+            es.shutdown();
+            
+            //Main thread watches the game until it finishes, runs out of time or stops making progress.
+            GameWatchdog.Outcome outcome = GameWatchdog.Outcome.TIMED_OUT;
+            try{
+                outcome = new GameWatchdog(game, timeoutNanos, TimeUnit.SECONDS.toNanos(stallSeconds)).watch(es);
+            } catch( InterruptedException e ) {
+                e.printStackTrace();
+            } 
+            
+            //If the game did not finish, record where every player was, then stop the game.
+            if( outcome != GameWatchdog.Outcome.FINISHED ){
+                String playerStates = game.describePlayers();
+                es.shutdownNow();
+                if( outcome == GameWatchdog.Outcome.STALLED ) {
+                    System.out.println("No player made progress for " + stallSeconds + " seconds."
+                            + " \nSimulation is stuck, it has been interrupted for log analysis.");
+                } else {
+                    System.out.println("Simulation ran for over " + timeoutSeconds + " seconds. \nSimulation" + 
+                            " could be impossible, it has been interrupted for log analysis.");
+                }
+                System.out.print("Players when interrupted:" + System.lineSeparator() + playerStates);
+                //Give the interrupted players a moment to stop before their logs are written.
+                try{
+                    es.awaitTermination(10, TimeUnit.SECONDS);
+                } catch( InterruptedException e ) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        long startupNanos = game.getStartupNanos();
+        if( startupNanos >= 0 ) {
+            System.out.println(String.format("Starting took %.3fms, from the first player drawing their hand"
+                    + " to the first turn.", startupNanos / 1e6));
+        }
+        long quiesceNanos = game.getQuiesceNanos();
+        if( quiesceNanos >= 0 ) {
+            System.out.println(String.format("Stopping took %.3fms, from the winning draw"
+                    + " to the last player stopping.", quiesceNanos / 1e6));
+        }
+        
+        if( logWriter != null ) {
+            logWriter.close(); //Wait for the rest of the logs to be written.
+        } else {
+            //Write the output files to the created directory.
+            for( Player player : game.allPlayers ) {
+                if( compressLogs ) {
+                    writeCompressedLog(Paths.get("playerOutputs/" + player.name + ".txt.gz"), player.getGameLog());
+                } else {
+                    Path path = Paths.get("playerOutputs/" + player.name + ".txt");
+                    Files.write(path, player.getGameLog(), StandardCharsets.UTF_8);
+                }
+            }
         }
         System.out.println("Simulation ended, output files have been added in local directory: playerOutputs/");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
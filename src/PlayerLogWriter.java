@@ -0,0 +1,420 @@
+package pebble;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the player logs to their output files while the game is running.
+ *
+ * Each player's log hands over its records in fixed size arrays, which are queued
+ * for a background thread to render and write. The queue is bounded, so a player
+ * that gets too far ahead of the writer waits for it, and the arrays are reused
+ * once written, so the memory used for logging stays the same however long the game lasts.
+ * The files can also be gzip compressed as they are written, or the records of every
+ * player can be appended to a single event file instead, see GameEventFile.
+ */
+class PlayerLogWriter implements Closeable {
+
+    /**
+     * Builds the text of the events recorded by a player.
+     */
+    interface Renderer {
+
+        /**
+         * Build the text of a recorded event, replaying its change to the hand.
+         * @param log Log holding the event.
+         * @param event Index of the event in the log.
+         * @param replayedHand The player's hand as it was before the event.
+         * @return Text of the event, or null if the event only records the hand.
+         */
+        String describe( EventLog log, int event, List<Integer> replayedHand );
+    }
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final Path directory;
+    private final boolean compress;
+    private final BlockingQueue<Chunk> queue;
+    private final BlockingQueue<int[]> freeArrays;
+    private final List<WritableByteChannel> channels;
+    private final ByteBuffer buffer;
+    private final Thread thread;
+    private EventFile eventFile;
+    private IOException failure;
+    private volatile boolean finished;
+
+    /**
+     * Constructs a writer for logs in the given directory.
+     * @param directory Directory to write the output files to.
+     * @param queuedArrays Number of arrays of records that can wait to be written before players wait.
+     * @param compress Whether to gzip compress the output files.
+     */
+    PlayerLogWriter(Path directory, int queuedArrays, boolean compress){
+        this.directory = directory;
+        this.compress = compress;
+        queue = new ArrayBlockingQueue<>(queuedArrays);
+        freeArrays = new ArrayBlockingQueue<>(queuedArrays + 1);
+        channels = new ArrayList<>();
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        thread = new Thread(this::drain, "Player log writer");
+    }
+
+    /**
+     * Open the output file of a player, and send the player's log to it.
+     * @param log The player's log.
+     * @param fileName Name of the output file, to which ".gz" is added when compressing.
+     * @param renderer Builds the text of the player's events.
+     * @throws IOException If the file cannot be opened.
+     */
+    void open( EventLog log, String fileName, Renderer renderer ) throws IOException {
+        WritableByteChannel channel = FileChannel.open(directory.resolve(compress ? fileName + ".gz" : fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if( compress ) {
+            channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES));
+        }
+        channels.add(channel);
+        log.setSink(new TextStream(channel, renderer));
+    }
+
+    /**
+     * Open the single event file that player logs can be appended to, instead of a text file each.
+     * The file is never compressed, so it can be read from any position.
+     * @param fileName Name of the event file.
+     * @param numPlayers Number of players in the game.
+     * @throws IOException If the file cannot be opened.
+     */
+    void openEventFile( String fileName, int numPlayers ) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        channels.add(channel);
+        ByteBuffer header = ByteBuffer.allocate(GameEventFile.HEADER_BYTES);
+        header.putInt(GameEventFile.MAGIC).putInt(GameEventFile.VERSION).putInt(numPlayers).flip();
+        while( header.hasRemaining() ) {
+            channel.write(header);
+        }
+        eventFile = new EventFile(channel, numPlayers);
+    }
+
+    /**
+     * Send a player's log to the event file, which must have been opened, timing its
+     * events so the timeline of every player can be replayed.
+     * @param log The player's log.
+     * @param player Number of the player, starting from 1.
+     */
+    void openEvents( EventLog log, int player ) {
+        if( eventFile == null ) {
+            throw new IllegalStateException("The event file has not been opened.");
+        }
+        log.setTimed(true);
+        log.setSink(new EventStream(player));
+    }
+
+    /**
+     * Start writing the logs in the background.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Wait for every queued log to be written, add the index to the event file, then close
+     * the output files. Logs must have been flushed before closing.
+     * @throws IOException If writing any log failed.
+     */
+    @Override
+    public void close() throws IOException {
+        enqueue(new Chunk(null, null, 0)); //Tells the writer thread to finish.
+        boolean interrupted = false;
+        while( thread.isAlive() ) {
+            try{
+                thread.join();
+            } catch( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+        if( eventFile != null && failure == null ) {
+            try{
+                eventFile.writeIndex();
+            } catch( IOException e ) {
+                failure = e;
+            }
+        }
+        for( WritableByteChannel channel : channels ) {
+            try{
+                channel.close();
+            } catch( IOException e ) {
+                if( failure == null ) {
+                    failure = e;
+                }
+            }
+        }
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+        if( failure != null ) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Queue a chunk, waiting for space even if interrupted while the writer thread runs,
+     * as it always makes room, so no events are lost. Once the writer thread has
+     * finished, the chunk is dropped instead, as nothing would ever make room for it.
+     * The interrupt status is kept for the caller.
+     * @param chunk Chunk to queue.
+     */
+    private void enqueue( Chunk chunk ) {
+        boolean interrupted = false;
+        while( !finished ) {
+            try{
+                queue.put(chunk);
+                if( finished ) {
+                    queue.clear(); //Nothing will take the chunk, so make room for anyone still waiting.
+                }
+                break;
+            } catch( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write queued chunks until told to finish, run by the writer thread. A chunk
+     * that cannot be written fails the writer, but the queue is still drained, and
+     * emptied once the thread finishes, so players are never left waiting.
+     */
+    private void drain() {
+        try{
+            while( true ) {
+                Chunk chunk;
+                try{
+                    chunk = queue.take();
+                } catch( InterruptedException e ) {
+                    continue;   //Only closing the writer stops it.
+                }
+                if( chunk.stream == null ) {
+                    return;
+                }
+                if( failure == null ) {
+                    try{
+                        chunk.stream.write(chunk.events, chunk.size);
+                    } catch( IOException e ) {
+                        failure = e;
+                    } catch( RuntimeException e ) {
+                        failure = new IOException("A player log could not be written.", e);
+                    }
+                }
+                freeArrays.offer(chunk.events);
+            }
+        } finally {
+            finished = true;
+            queue.clear();
+        }
+    }
+
+    /**
+     * Records of a player waiting to be written.
+     */
+    private static class Chunk {
+        private final Stream stream;
+        private final int[] events;
+        private final int size;
+
+        private Chunk(Stream stream, int[] events, int size){
+            this.stream = stream;
+            this.events = events;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Add bytes to the write buffer, writing it to a file whenever it fills.
+     * @param channel File the buffer is written to.
+     * @param bytes Bytes to add.
+     * @throws IOException If writing fails.
+     */
+    private void put( WritableByteChannel channel, byte[] bytes ) throws IOException {
+        int offset = 0;
+        while( offset < bytes.length ) {
+            if( !buffer.hasRemaining() ) {
+                writeBuffer(channel);
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Add an int to the write buffer, writing it to a file whenever it fills.
+     * @param channel File the buffer is written to.
+     * @param value Value to add.
+     * @throws IOException If writing fails.
+     */
+    private void putInt( WritableByteChannel channel, int value ) throws IOException {
+        if( buffer.remaining() < Integer.BYTES ) {
+            writeBuffer(channel);
+        }
+        buffer.putInt(value);
+    }
+
+    /**
+     * Add a long to the write buffer, writing it to a file whenever it fills.
+     * @param channel File the buffer is written to.
+     * @param value Value to add.
+     * @throws IOException If writing fails.
+     */
+    private void putLong( WritableByteChannel channel, long value ) throws IOException {
+        if( buffer.remaining() < Long.BYTES ) {
+            writeBuffer(channel);
+        }
+        buffer.putLong(value);
+    }
+
+    /**
+     * Write everything in the buffer to a file.
+     * @param channel File to write to.
+     * @throws IOException If writing fails.
+     */
+    private void writeBuffer( WritableByteChannel channel ) throws IOException {
+        buffer.flip();
+        while( buffer.hasRemaining() ) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Where the records of a player's log are sent.
+     */
+    private abstract class Stream implements EventLog.Sink {
+
+        @Override
+        public int[] flush( int[] events, int size ) {
+            enqueue(new Chunk(this, events, size));
+            int[] free = freeArrays.poll();
+            return free != null && free.length == events.length ? free : new int[events.length];
+        }
+
+        /**
+         * Write the records of a chunk, run by the writer thread.
+         * @param events Records of the chunk.
+         * @param size Number of events in the chunk.
+         * @throws IOException If writing fails.
+         */
+        abstract void write( int[] events, int size ) throws IOException;
+    }
+
+    /**
+     * Text output file of a single player, and the hand replayed so far.
+     */
+    private class TextStream extends Stream {
+        private final WritableByteChannel channel;
+        private final Renderer renderer;
+        private final List<Integer> replayedHand;
+
+        private TextStream(WritableByteChannel channel, Renderer renderer){
+            this.channel = channel;
+            this.renderer = renderer;
+            replayedHand = new ArrayList<>();
+        }
+
+        @Override
+        void write( int[] events, int size ) throws IOException {
+            EventLog log = new EventLog(events, size);
+            for(int event = 0; event < size; event++){
+                String entry = renderer.describe(log, event, replayedHand);
+                if( entry != null ) {
+                    put(channel, entry.getBytes(StandardCharsets.UTF_8));
+                    put(channel, LINE_SEPARATOR);
+                }
+            }
+            writeBuffer(channel);
+        }
+    }
+
+    /**
+     * Records of a single player, appended to the event file.
+     */
+    private class EventStream extends Stream {
+        private final int player;
+
+        private EventStream(int player){
+            this.player = player;
+        }
+
+        @Override
+        void write( int[] events, int size ) throws IOException {
+            eventFile.append(player, events, size);
+        }
+    }
+
+    /**
+     * The single event file shared by every player, and the index of its blocks.
+     */
+    private class EventFile {
+        private final WritableByteChannel channel;
+        private final GameEventFile.Index index;
+        private final int numPlayers;
+        private long position;
+
+        private EventFile(WritableByteChannel channel, int numPlayers){
+            this.channel = channel;
+            this.numPlayers = numPlayers;
+            index = new GameEventFile.Index(numPlayers);
+            position = GameEventFile.HEADER_BYTES;
+        }
+
+        /**
+         * Append a block of a player's records to the end of the file.
+         * @param player Number of the player, starting from 1.
+         * @param events Records of the block.
+         * @param size Number of events in the block.
+         * @throws IOException If writing fails.
+         */
+        private void append( int player, int[] events, int size ) throws IOException {
+            index.add(player, position);
+            putInt(channel, player);
+            putInt(channel, size);
+            int length = size * EventLog.FIELDS;
+            for(int i = 0; i < length; i++){
+                putInt(channel, events[i]);
+            }
+            writeBuffer(channel);
+            position += GameEventFile.BLOCK_HEADER_BYTES + (long) length * Integer.BYTES;
+        }
+
+        /**
+         * Append the index of every player's blocks, then where the index starts.
+         * @throws IOException If writing fails.
+         */
+        private void writeIndex() throws IOException {
+            for(int player = 1; player <= numPlayers; player++){
+                int blocks = index.count(player);
+                putInt(channel, blocks);
+                for(int block = 0; block < blocks; block++){
+                    putLong(channel, index.offset(player, block));
+                }
+            }
+            putLong(channel, position);
+            putInt(channel, GameEventFile.MAGIC);
+            writeBuffer(channel);
+        }
+    }
+}
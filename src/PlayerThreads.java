@@ -0,0 +1,56 @@
+package pebble;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The kind of thread each player runs on.
+ */
+enum PlayerThreads {
+
+    /**
+     * A platform thread for each player, from a fixed size pool.
+     */
+    PLATFORM {
+        @Override
+        ExecutorService newExecutor(int numPlayers) {
+            return Executors.newFixedThreadPool(numPlayers);
+        }
+    },
+
+    /**
+     * A virtual thread for each player, so games can have far more players than
+     * the system has threads. Virtual threads need Java 21, so on older versions
+     * each player gets a platform thread with a small stack instead.
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService newExecutor(int numPlayers) {
+            if( virtualThreadsAvailable() ) {
+                try{
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch( NoSuchMethodException | IllegalAccessException | InvocationTargetException e ) {
+                    //Fall back to platform threads below.
+                }
+            }
+            return Executors.newCachedThreadPool(player -> new Thread(null, player, "Player", SMALL_STACK_BYTES));
+        }
+    };
+
+    private static final long SMALL_STACK_BYTES = 256 * 1024;
+
+    /**
+     * Make an executor that runs every player of a game at once.
+     * @param numPlayers Number of players in the game.
+     * @return Executor with a thread for each player.
+     */
+    abstract ExecutorService newExecutor(int numPlayers);
+
+    /**
+     * @return Whether this Java version has virtual threads.
+     */
+    static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+}
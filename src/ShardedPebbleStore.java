@@ -0,0 +1,233 @@
+package pebble;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pebble store split into segments that are each locked on their own, so players
+ * can draw from the same bag at once as long as they draw from different segments.
+ *
+ * Pebbles added are dealt out to the segments in turn, keeping the segments about the
+ * same size. A draw picks a random segment, moving on to the next one while it is empty,
+ * then a random pebble inside it, so each pebble's chance of being drawn is close to
+ * uniform while the segments stay balanced. Draws may run at the same time as each other
+ * and as adds, every other use of the store needs the bag it belongs to locked.
+ */
+class ShardedPebbleStore implements ConcurrentPebbleStore {
+    private final Segment[] segments;
+    private final List<Integer> view;
+    private int nextSegment;
+
+    /**
+     * Constructs an empty store.
+     * @param numSegments Number of segments the pebbles are split across.
+     * @param capacity Number of pebbles the store can hold before growing.
+     */
+    ShardedPebbleStore(int numSegments, int capacity){
+        if( numSegments < 1 ) {
+            throw new IllegalArgumentException("A store needs at least one segment, not " + numSegments);
+        }
+        segments = new Segment[numSegments];
+        for(int i = 0; i < numSegments; i++){
+            segments[i] = new Segment(capacity / numSegments + 1);
+        }
+        view = new View();
+    }
+
+    /**
+     * @return Number of segments the pebbles are split across.
+     */
+    int getNumSegments() {
+        return segments.length;
+    }
+
+    /**
+     * Take a random pebble, locking only the segment it is taken from.
+     */
+    @Override
+    public int draw( SplittableRandom random ) {
+        int first = random.nextInt(segments.length);
+        for(int i = 0; i < segments.length; i++){
+            Segment segment = segments[(first + i) % segments.length];
+            if( segment.size == 0 ) {
+                continue;
+            }
+            segment.lock.lock();
+            try{
+                //Another player may have emptied the segment since its size was read.
+                if( segment.size > 0 ) {
+                    int pebble = segment.pebbles.take(random.nextInt(0, segment.size));
+                    segment.size--;
+                    return pebble;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return BlackBag.EMPTY;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for( Segment segment : segments ) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public int get( int index ) {
+        int offset = index;
+        for( Segment segment : segments ) {
+            if( offset >= 0 && offset < segment.size ) {
+                return segment.pebbles.get(offset);
+            }
+            offset -= segment.size;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    @Override
+    public void add( int pebble ) {
+        Segment segment = segments[nextSegment];
+        nextSegment = (nextSegment + 1) % segments.length;
+        segment.lock.lock();
+        try{
+            segment.pebbles.add(pebble);
+            segment.size++;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Deal the pebbles out to the segments in turn, as adding them one at a time would,
+     * locking each segment once.
+     */
+    @Override
+    public void addAll( PebbleStore other ) {
+        int size = other.size();
+        for(int i = 0; i < segments.length; i++){
+            Segment segment = segments[(nextSegment + i) % segments.length];
+            segment.lock.lock();
+            try{
+                for(int index = i; index < size; index += segments.length){
+                    segment.pebbles.add(other.get(index));
+                }
+                segment.size = segment.pebbles.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        nextSegment = (nextSegment + size) % segments.length;
+    }
+
+    @Override
+    public void remove( int index ) {
+        removeAt(index, true);
+    }
+
+    /**
+     * Take the pebble from its segment, where the last pebble of the segment fills its slot.
+     */
+    @Override
+    public int take( int index ) {
+        return removeAt(index, false);
+    }
+
+    /**
+     * Remove a pebble from the segment holding it.
+     * @param index Index of the pebble, counting through the segments in order.
+     * @param keepOrder Whether the order of the segment's remaining pebbles must be kept.
+     * @return Value of the removed pebble.
+     */
+    private int removeAt( int index, boolean keepOrder ) {
+        int offset = index;
+        for( Segment segment : segments ) {
+            if( offset >= 0 && offset < segment.size ) {
+                segment.lock.lock();
+                try{
+                    int pebble = segment.pebbles.get(offset);
+                    if( keepOrder ) {
+                        segment.pebbles.remove(offset);
+                    } else {
+                        segment.pebbles.take(offset);
+                    }
+                    segment.size--;
+                    return pebble;
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+            offset -= segment.size;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    @Override
+    public void clear() {
+        for( Segment segment : segments ) {
+            segment.lock.lock();
+            try{
+                segment.pebbles.clear();
+                segment.size = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        nextSegment = 0;
+    }
+
+    @Override
+    public List<Integer> view() {
+        return view;
+    }
+
+    /**
+     * Pebbles of one segment and the lock guarding them. The size is kept beside the
+     * pebbles, so it can be read without the lock.
+     */
+    private static class Segment {
+        private final ReentrantLock lock;
+        private final ArrayPebbleStore pebbles;
+        private volatile int size;
+
+        private Segment(int capacity){
+            lock = new ReentrantLock();
+            pebbles = new ArrayPebbleStore(capacity);
+        }
+    }
+
+    /**
+     * Boxed list adapter over the segments in order, for callers that still use getPebbles().
+     */
+    private class View extends AbstractList<Integer> implements RandomAccess {
+
+        @Override
+        public Integer get( int index ) {
+            return ShardedPebbleStore.this.get(index);
+        }
+
+        @Override
+        public Integer remove( int index ) {
+            int old = take(index);
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            ShardedPebbleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return ShardedPebbleStore.this.size();
+        }
+    }
+}
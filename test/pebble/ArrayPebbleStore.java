@@ -0,0 +1,156 @@
+package pebble;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Pebble store backed by a primitive int array, so pebbles are never boxed
+ * and a random pebble can be taken out in constant time.
+ */
+class ArrayPebbleStore implements PebbleStore {
+    private int[] pebbles;
+    private int size;
+    private final List<Integer> view;
+
+    /**
+     * Constructs an empty store.
+     * @param capacity Number of pebbles the store can hold before growing.
+     */
+    ArrayPebbleStore(int capacity){
+        pebbles = new int[Math.max(capacity, 1)];
+        view = new View();
+    }
+
+    /**
+     * Constructs a store holding a copy of the given pebbles.
+     * @param pebbles Pebbles to copy into the store.
+     */
+    ArrayPebbleStore(List<Integer> pebbles){
+        this(pebbles.size());
+        for(int pebble : pebbles){
+            this.pebbles[size++] = pebble;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get( int index ) {
+        checkIndex(index);
+        return pebbles[index];
+    }
+
+    @Override
+    public void add( int pebble ) {
+        if( size == pebbles.length ) {
+            pebbles = Arrays.copyOf(pebbles, pebbles.length * 2);
+        }
+        pebbles[size++] = pebble;
+    }
+
+    @Override
+    public void remove( int index ) {
+        checkIndex(index);
+        System.arraycopy(pebbles, index + 1, pebbles, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Swap the chosen pebble with the last pebble and drop the last slot.
+     */
+    @Override
+    public int take( int index ) {
+        checkIndex(index);
+        int pebble = pebbles[index];
+        pebbles[index] = pebbles[--size];
+        return pebble;
+    }
+
+    @Override
+    public void addAll( PebbleStore other ) {
+        if( !(other instanceof ArrayPebbleStore) ) {
+            PebbleStore.super.addAll(other);
+            return;
+        }
+        ArrayPebbleStore source = (ArrayPebbleStore) other;
+        if( size + source.size > pebbles.length ) {
+            pebbles = Arrays.copyOf(pebbles, Math.max(size + source.size, pebbles.length * 2));
+        }
+        System.arraycopy(source.pebbles, 0, pebbles, size, source.size);
+        size += source.size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public List<Integer> view() {
+        return view;
+    }
+
+    /**
+     * Throws if the index is outside the pebbles currently held.
+     * @param index Index to check.
+     */
+    private void checkIndex( int index ) {
+        if( index < 0 || index >= size ) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Boxed list adapter over the array, for callers that still use getPebbles().
+     */
+    private class View extends AbstractList<Integer> implements RandomAccess {
+
+        @Override
+        public Integer get( int index ) {
+            return ArrayPebbleStore.this.get(index);
+        }
+
+        @Override
+        public Integer set( int index, Integer pebble ) {
+            checkIndex(index);
+            int old = pebbles[index];
+            pebbles[index] = pebble;
+            return old;
+        }
+
+        @Override
+        public void add( int index, Integer pebble ) {
+            if( index < 0 || index > size ) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            ArrayPebbleStore.this.add(pebble);
+            System.arraycopy(pebbles, index, pebbles, index + 1, size - index - 1);
+            pebbles[index] = pebble;
+            modCount++;
+        }
+
+        @Override
+        public Integer remove( int index ) {
+            int old = ArrayPebbleStore.this.get(index);
+            ArrayPebbleStore.this.remove(index);
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            ArrayPebbleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+
+public class ArrayPebbleStoreTest {
+
+    ArrayPebbleStore testStore;
+
+    /**
+     * Constructor for array pebble store test.
+     */
+    public ArrayPebbleStoreTest() {
+    }
+
+    /**
+     * Instantiate a new store for each test, holding the pebbles [1..5].
+     */
+    @Before
+    public void newStore(){
+        testStore = new ArrayPebbleStore(Arrays.asList(1,2,3,4,5));
+    }
+
+    /**
+     * Test take method, of class ArrayPebbleStore.
+     */
+    @Test
+    public void testTake() {
+        System.out.println("Testing take array store method.");
+        assertEquals("Taken pebble was not the one at the index", testStore.take(1), 2);
+        assertEquals("Last pebble should fill the taken slot", testStore.view(), Arrays.asList(1,5,3,4));
+    }
+
+    /**
+     * Test remove method, of class ArrayPebbleStore.
+     */
+    @Test
+    public void testRemove() {
+        System.out.println("Testing remove array store method.");
+        testStore.remove(0);
+        assertEquals("Pebble was not removed correctly", testStore.view(), Arrays.asList(2,3,4,5));
+    }
+
+    /**
+     * Test add method, of class ArrayPebbleStore, growing past its capacity.
+     */
+    @Test
+    public void testAdd() {
+        System.out.println("Testing add array store method.");
+        for(int i = 6; i <= 20; i++){
+            testStore.add(i);
+        }
+        assertEquals("Incorrect size returned", testStore.size(), 20);
+        assertEquals("Pebble was added incorrectly", testStore.get(19), 20);
+    }
+
+    /**
+     * Test addAll method, of class ArrayPebbleStore.
+     */
+    @Test
+    public void testAddAll() {
+        System.out.println("Testing addAll array store method.");
+        testStore.addAll(new ArrayPebbleStore(Arrays.asList(6,7)));
+        testStore.addAll(new ListPebbleStore(new ArrayList<>(Arrays.asList(8))));
+        assertEquals("Pebbles were added incorrectly", testStore.view(), Arrays.asList(1,2,3,4,5,6,7,8));
+    }
+
+    /**
+     * Test the list view writes through to the store.
+     */
+    @Test
+    public void testView() {
+        System.out.println("Testing view array store method.");
+        List<Integer> view = testStore.view();
+        view.clear();
+        view.addAll(Arrays.asList(10,10));
+        assertEquals("View did not write through to the store", testStore.size(), 2);
+        assertEquals("View did not write through to the store", testStore.get(1), 10);
+    }
+}
@@ -0,0 +1,241 @@
+package pebble;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pebble store that players can draw from and deposit into without any lock.
+ *
+ * Pebbles are kept in the slots of an atomic array used as a ring, between a head and a
+ * tail that only ever count up. As every pebble weighs at least 1, a slot not holding a
+ * pebble is marked with 0 until written, or -1 once its pebble is taken. A deposit claims
+ * the slot at the tail by moving the tail on, so deposits never wait for each other. A draw
+ * picks random slots between the head and the tail until one holds a pebble, and claims it
+ * by marking it taken with a compare and set, so no two players can take the same pebble,
+ * and every pebble left is as likely to be drawn as any other. The slots emptied by draws
+ * are only compacted away once the store is empty, by clearing it before it is refilled.
+ *
+ * The array cannot grow while players use the store, so it is made large enough to hold
+ * every pebble of a game, and a slot is never claimed again before the head has passed it.
+ * Emptying the store while players deposit into it must be done through moveTo, and only
+ * one player at a time may empty the store, or clear and add to it while players only draw,
+ * which refilling under the bag's lock already ensures.
+ */
+class AtomicPebbleStore implements ConcurrentPebbleStore {
+    private static final int UNWRITTEN = 0;
+    private static final int TAKEN = -1;
+
+    private final AtomicIntegerArray slots;
+    private final AtomicLong tail;
+    private final AtomicInteger size;
+    private final List<Integer> view;
+    private volatile long head;
+
+    /**
+     * Constructs an empty store.
+     * @param capacity Most pebbles the store can ever hold, which should be every pebble of the game.
+     */
+    AtomicPebbleStore(int capacity){
+        slots = new AtomicIntegerArray(Math.max(capacity, 1));
+        tail = new AtomicLong();
+        size = new AtomicInteger();
+        view = new View();
+    }
+
+    /**
+     * Constructs a store holding a copy of the given pebbles.
+     * @param pebbles Pebbles to copy into the store.
+     * @param capacity Most pebbles the store can ever hold, which should be every pebble of the game.
+     */
+    AtomicPebbleStore(List<Integer> pebbles, int capacity){
+        this(Math.max(capacity, pebbles.size()));
+        for( int pebble : pebbles ) {
+            add(pebble);
+        }
+    }
+
+    /**
+     * Get the number of pebbles in the store. While a pebble is being deposited it is
+     * counted before it can be drawn, so the size is never below the pebbles left to draw.
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int get( int index ) {
+        return slots.get(slotOf(index));
+    }
+
+    /**
+     * Deposit a pebble into the slot at the tail, safe to call from many players at once.
+     */
+    @Override
+    public void add( int pebble ) {
+        if( pebble < 1 ) {
+            throw new IllegalArgumentException("Pebbles must weigh at least 1.");
+        }
+        //Only checked before claiming the slot, as a store holding every pebble of the game never fills.
+        if( tail.get() - head >= slots.length() ) {
+            throw new IllegalStateException("Store is full, it can only hold " + slots.length() + " pebbles.");
+        }
+        size.incrementAndGet(); //Counted first, so the size never falls below the pebbles left to draw.
+        slots.set(ring(tail.getAndIncrement()), pebble);
+    }
+
+    @Override
+    public void remove( int index ) {
+        take(index);
+    }
+
+    @Override
+    public int take( int index ) {
+        while( true ) {
+            int slot = slotOf(index);
+            int pebble = slots.get(slot);
+            if( pebble > 0 && slots.compareAndSet(slot, pebble, TAKEN) ) {
+                size.decrementAndGet();
+                return pebble;
+            }
+        }
+    }
+
+    @Override
+    public int draw( SplittableRandom random ) {
+        if( size.get() <= 0 ) {
+            return BlackBag.EMPTY;
+        }
+        long start = head;
+        int used = (int) Math.min(tail.get() - start, slots.length());
+        if( used == 0 ) {
+            return BlackBag.EMPTY; //The pebble counted has not claimed its slot yet.
+        }
+        //Try random slots, giving up to look through every slot once the store seems empty.
+        for(int attempt = 0; attempt < 4 * used; attempt++){
+            int slot = ring(start + random.nextInt(used));
+            int pebble = slots.get(slot);
+            if( pebble > 0 && slots.compareAndSet(slot, pebble, TAKEN) ) {
+                size.decrementAndGet();
+                return pebble;
+            }
+            if( (attempt & 63) == 63 && size.get() <= 0 ) {
+                return BlackBag.EMPTY;
+            }
+        }
+        for(int i = 0; i < used; i++){
+            int slot = ring(start + i);
+            int pebble = slots.get(slot);
+            if( pebble > 0 && slots.compareAndSet(slot, pebble, TAKEN) ) {
+                size.decrementAndGet();
+                return pebble;
+            }
+        }
+        return BlackBag.EMPTY; //Any pebble counted has not been written to its slot yet.
+    }
+
+    /**
+     * Move every pebble below the tail to another store, while players may still be
+     * depositing into this store. A slot claimed by a deposit is waited for until its
+     * pebble is written, and each slot is marked unwritten again before the head passes
+     * it, so it is ready for the deposit that next claims it. The head passes each slot
+     * before its pebble is added to the target, so a pebble drawn from the target and
+     * deposited back while the move goes on always finds room. Pebbles deposited after
+     * the tail was read are left in the store.
+     */
+    @Override
+    public void moveTo( PebbleStore target ) {
+        long end = tail.get();
+        for(long position = head; position < end; position++){
+            int slot = ring(position);
+            int pebble = slots.get(slot);
+            while( pebble == UNWRITTEN || (pebble != TAKEN && !slots.compareAndSet(slot, pebble, TAKEN)) ) {
+                Thread.onSpinWait(); //The player depositing it is still writing it.
+                pebble = slots.get(slot);
+            }
+            slots.set(slot, UNWRITTEN);
+            head = position + 1;
+            if( pebble != TAKEN ) {
+                size.decrementAndGet();
+                target.add(pebble);
+            }
+        }
+    }
+
+    /**
+     * Empty the store, which no player may be using, other than drawing once it is empty.
+     */
+    @Override
+    public void clear() {
+        long end = tail.get();
+        for(long position = head; position < end; position++){
+            slots.set(ring(position), UNWRITTEN);
+        }
+        head = 0;
+        tail.set(0);
+        size.set(0);
+    }
+
+    @Override
+    public List<Integer> view() {
+        return view;
+    }
+
+    /**
+     * @param position Position between the head and the tail.
+     * @return Index of the slot at the position.
+     */
+    private int ring( long position ) {
+        return (int) (position % slots.length());
+    }
+
+    /**
+     * Find the slot holding a pebble.
+     * @param index Index of the pebble, counting only the slots holding pebbles.
+     * @return Index of the slot.
+     */
+    private int slotOf( int index ) {
+        long end = tail.get();
+        int count = -1;
+        for(long position = head; position < end; position++){
+            int slot = ring(position);
+            if( slots.get(slot) > 0 && ++count == index ) {
+                return slot;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (count + 1));
+    }
+
+    /**
+     * Boxed list adapter over the slots holding pebbles, for callers that still use getPebbles().
+     */
+    private class View extends AbstractList<Integer> {
+
+        @Override
+        public Integer get( int index ) {
+            return AtomicPebbleStore.this.get(index);
+        }
+
+        @Override
+        public Integer remove( int index ) {
+            int old = take(index);
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            AtomicPebbleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return AtomicPebbleStore.this.size();
+        }
+    }
+}
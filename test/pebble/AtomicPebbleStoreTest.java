@@ -0,0 +1,229 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AtomicPebbleStoreTest {
+
+    AtomicPebbleStore testStore;
+
+    /**
+     * Constructor for atomic pebble store test.
+     */
+    public AtomicPebbleStoreTest() {
+    }
+
+    /**
+     * Instantiate a new store for each test, holding the pebbles [1..5], with room for 8.
+     */
+    @Before
+    public void newStore(){
+        testStore = new AtomicPebbleStore(Arrays.asList(1,2,3,4,5), 8);
+    }
+
+    /**
+     * Test add, take and remove methods, of class AtomicPebbleStore.
+     * @result Taken slots are skipped by the view until the store is cleared.
+     */
+    @Test
+    public void testTake() {
+        System.out.println("Testing add and take atomic store methods.");
+        assertEquals("Incorrect size returned", 5, testStore.size());
+        assertEquals("Taken pebble was not the one at the index", 2, testStore.take(1));
+        testStore.remove(2);
+        assertEquals("Pebbles were not taken correctly", Arrays.asList(1,3,5), testStore.view());
+        testStore.add(6);
+        assertEquals("Added pebble should follow the others", Arrays.asList(1,3,5,6), testStore.view());
+        testStore.clear();
+        assertEquals("Store should be empty", 0, testStore.size());
+        testStore.add(7);
+        assertEquals("Cleared store should be written from the start", Arrays.asList(7), testStore.view());
+    }
+
+    /**
+     * Test adding more pebbles than the store can hold, and adding an invalid pebble.
+     * @result Both are refused, and the store is left as it was.
+     */
+    @Test
+    public void testFull() {
+        System.out.println("Testing adding to a full atomic store.");
+        testStore.add(6);
+        testStore.add(7);
+        testStore.add(8);
+        try{
+            testStore.add(9);
+            fail("A full store should refuse pebbles");
+        } catch( IllegalStateException e ) {
+            assertEquals("Refused pebble should not be counted", 8, testStore.size());
+        }
+        try{
+            new AtomicPebbleStore(4).add(0);
+            fail("Pebbles should weigh at least 1");
+        } catch( IllegalArgumentException e ) {
+        }
+    }
+
+    /**
+     * Test moveTo method, of class AtomicPebbleStore.
+     * @result Every pebble is moved, and the store is written from the start again.
+     */
+    @Test
+    public void testMoveTo() {
+        System.out.println("Testing moving pebbles from an atomic store.");
+        testStore.take(0);
+        AtomicPebbleStore target = new AtomicPebbleStore(8);
+        testStore.moveTo(target);
+        assertEquals("Pebbles were not moved", Arrays.asList(2,3,4,5), target.view());
+        assertEquals("Store should be empty", 0, testStore.size());
+        testStore.add(9);
+        assertEquals("Emptied store should be written from the start", Arrays.asList(9), testStore.view());
+    }
+
+    /**
+     * Draw every pebble from a store on several threads at once.
+     * @result Every pebble is drawn exactly once, and the empty store draws nothing.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentDraws() throws InterruptedException {
+        System.out.println("Testing drawing from an atomic store on many threads.");
+        int numPebbles = 40000;
+        AtomicPebbleStore store = new AtomicPebbleStore(numPebbles);
+        for(int pebble = 1; pebble <= numPebbles; pebble++){
+            store.add(pebble);
+        }
+        List<List<Integer>> drawn = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            List<Integer> pebbles = new ArrayList<>();
+            drawn.add(pebbles);
+            SplittableRandom random = new SplittableRandom(i);
+            threads.add(new Thread(() -> {
+                int pebble = store.draw(random);
+                while( pebble != BlackBag.EMPTY ) {
+                    pebbles.add(pebble);
+                    pebble = store.draw(random);
+                }
+            }));
+        }
+        for( Thread thread : threads ) {
+            thread.start();
+        }
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+        boolean[] seen = new boolean[numPebbles + 1];
+        int total = 0;
+        for( List<Integer> pebbles : drawn ) {
+            for( int pebble : pebbles ) {
+                assertFalse("Pebble " + pebble + " was drawn twice", seen[pebble]);
+                seen[pebble] = true;
+                total++;
+            }
+        }
+        assertEquals("Every pebble should be drawn", numPebbles, total);
+        assertEquals("Store should be empty", 0, store.size());
+        assertEquals("Empty store should draw nothing", BlackBag.EMPTY, store.draw(new SplittableRandom(1)));
+    }
+
+    /**
+     * Draw a single pebble from a store with taken slots many times.
+     * @result Every pebble left is drawn about as often as every other.
+     */
+    @Test
+    public void testUniformDraws() {
+        System.out.println("Testing drawing uniformly from an atomic store.");
+        AtomicPebbleStore store = new AtomicPebbleStore(40);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[41];
+        for(int i = 0; i < 100000; i++){
+            store.clear();
+            for(int pebble = 1; pebble <= 40; pebble++){
+                store.add(pebble);
+            }
+            //Leave only the even pebbles, so half the slots are taken.
+            for(int index = 0; index < 20; index++){
+                store.take(index);
+            }
+            counts[store.draw(random)]++;
+        }
+        for(int pebble = 1; pebble <= 40; pebble++){
+            if( pebble % 2 == 0 ) {
+                assertTrue("Each pebble should be drawn about 5000 times, not " + counts[pebble],
+                        counts[pebble] > 4500 && counts[pebble] < 5500);
+            } else {
+                assertEquals("Taken pebbles should never be drawn", 0, counts[pebble]);
+            }
+        }
+    }
+
+    /**
+     * Play draws and deposits between a black bag and a white bag with atomic stores on
+     * several threads at once, each thread depositing every pebble it draws and refilling
+     * the black bag whenever it is empty, as players do.
+     * @result After many refills, the bags hold every pebble exactly once.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 20000)
+    public void testDrawDepositRefill() throws InterruptedException {
+        System.out.println("Testing drawing, depositing and refilling atomic stores on many threads.");
+        int numPebbles = 1000;
+        List<Integer> pebbles = new ArrayList<>();
+        for(int pebble = 1; pebble <= numPebbles; pebble++){
+            pebbles.add(pebble);
+        }
+        BlackBag blackBag = new BlackBag(new AtomicPebbleStore(pebbles, numPebbles), "d");
+        WhiteBag whiteBag = new WhiteBag(new AtomicPebbleStore(numPebbles), "a");
+        blackBag.setPair(whiteBag);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            int depositor = i + 1;
+            SplittableRandom random = new SplittableRandom(i);
+            threads.add(new Thread(() -> {
+                try{
+                    for(int turn = 0; turn < 20000; turn++){
+                        int pebble = blackBag.draw(random);
+                        if( pebble == BlackBag.EMPTY ) {
+                            blackBag.lock();
+                            try{
+                                if( blackBag.size() == 0 ) {
+                                    blackBag.refill();
+                                }
+                            } finally {
+                                blackBag.unlock();
+                            }
+                        } else {
+                            whiteBag.deposit(depositor, pebble);
+                        }
+                    }
+                } catch( RuntimeException e ) {
+                    failed.set(true);
+                    throw e;
+                }
+            }));
+        }
+        for( Thread thread : threads ) {
+            thread.start();
+        }
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+        assertFalse("A thread failed while drawing or depositing", failed.get());
+        List<Integer> remaining = new ArrayList<>(blackBag.getPebbles());
+        remaining.addAll(whiteBag.getPebbles());
+        boolean[] seen = new boolean[numPebbles + 1];
+        for( int pebble : remaining ) {
+            assertFalse("Pebble " + pebble + " is held twice", seen[pebble]);
+            seen[pebble] = true;
+        }
+        assertEquals("No pebble should be lost", numPebbles, remaining.size());
+        assertEquals("Sizes should count every pebble", numPebbles, blackBag.size() + whiteBag.size());
+    }
+}
@@ -2,10 +2,15 @@
 package pebble;
 
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
 
 class Bag {
-    private final List<Integer> pebbles;
+    private PebbleStore pebbles;
     private final String name;
+    private final int id;
+    private final ReentrantLock lock;
+    private boolean shared;
     
     /**
      * Constructs a bag with pebbles and a name.
@@ -13,8 +18,30 @@ class Bag {
      * @param name Name of bag.
      */
     Bag(List<Integer> pebbles, String name){
+        this(new ListPebbleStore(pebbles), name);
+    }
+    
+    /**
+     * Constructs a bag with a pebble store and a name.
+     * @param pebbles Pebble store to use.
+     * @param name Name of bag.
+     */
+    Bag(PebbleStore pebbles, String name){
+        this(pebbles, name, -1);
+    }
+    
+    /**
+     * Constructs a bag with a pebble store, a name and an id.
+     * @param pebbles Pebble store to use.
+     * @param name Name of bag.
+     * @param id Index of the bag's pair within its game.
+     */
+    Bag(PebbleStore pebbles, String name, int id){
         this.pebbles = pebbles;
         this.name = name;
+        this.id = id;
+        lock = new ReentrantLock();
+        shared = true;
     }
     
     /**
@@ -25,14 +52,78 @@ class Bag {
         return name;
     }
     
+    /**
+     * Gets the id of the bag, the index of its pair within its game.
+     * @return Id of bag, or -1 if the bag is not part of a game.
+     */
+    int getId(){
+        return id;
+    }
+    
+    /**
+     * Set whether the bag may be used by more than one thread at once. A bag that
+     * only one thread uses at a time is never locked.
+     * @param shared Whether the bag is shared between threads, which it is unless set otherwise.
+     */
+    void setShared( boolean shared ){
+        this.shared = shared;
+    }
+    
+    /**
+     * Lock the bag if it is shared, waiting while another player holds it.
+     * A lock is used rather than the bag's monitor, so a virtual thread waiting
+     * for the bag gives up its carrier thread.
+     */
+    void lock(){
+        if( shared ) {
+            lock.lock();
+        }
+    }
+    
+    /**
+     * Unlock the bag, which must be locked by the current thread if it is shared.
+     */
+    void unlock(){
+        if( shared ) {
+            lock.unlock();
+        }
+    }
+    
     /**
      * Gets the pebbles in the bag.
      * @return Pebbles in the bag.
      */
     List<Integer> getPebbles(){
-        return pebbles;
+        return pebbles.view();
     }   
     
+    /**
+     * Gets the store holding the pebbles in the bag.
+     * @return Pebble store of the bag.
+     */
+    PebbleStore getStore(){
+        return pebbles;
+    }
+    
+    /**
+     * Exchange the pebble stores of this bag and another bag, without copying any pebbles.
+     * Both bags must be locked by the caller.
+     * @param other Bag to exchange stores with.
+     */
+    void swapStore(Bag other){
+        PebbleStore temp = pebbles;
+        pebbles = other.pebbles;
+        other.pebbles = temp;
+    }
+    
+    /**
+     * Replace the store holding the pebbles in the bag. The bag must not be in use.
+     * @param pebbles New pebble store of the bag.
+     */
+    void setStore(PebbleStore pebbles){
+        this.pebbles = pebbles;
+    }
+    
     /**
      * Add an integer (pebble) to the bag.
      * @param pebble Pebble to add.
@@ -49,6 +140,16 @@ class Bag {
         pebbles.remove(index);
     }
     
+    /**
+     * Remove a pebble from the bag using it's index and return it's value,
+     * the order of the remaining pebbles may change.
+     * @param index Index to remove.
+     * @return Value of the removed pebble.
+     */
+    int take( int index ) {
+        return pebbles.take(index);
+    }
+    
     /**
      * Retrieve value of a specific index in the bag.
      * @param index Index to evaluate.
@@ -68,7 +169,14 @@ class Bag {
 }
 
 class BlackBag extends Bag{
+    /**
+     * Returned by draw when the bag holds no pebbles.
+     */
+    static final int EMPTY = -1;
+    
     private WhiteBag pair;
+    private ShardedPebbleStore segments;
+    private PebbleStore wholeStore;
     
     /**
      * Constructs a new black bag with pebbles and a name.
@@ -80,12 +188,115 @@ class BlackBag extends Bag{
     }
     
     /**
-     * Transfer all pebbles from the paired white bag to this bag.
+     * Constructs a new black bag with a pebble store and a name.
+     * @param pebbles Store of pebbles to fill the bag.
+     * @param name Name of the bag.
+     */
+    BlackBag(PebbleStore pebbles, String name){
+        super(pebbles,name);
+    }
+    
+    /**
+     * Constructs a new black bag with a pebble store, a name and an id.
+     * @param pebbles Store of pebbles to fill the bag.
+     * @param name Name of the bag.
+     * @param id Index of the bag's pair within its game.
+     */
+    BlackBag(PebbleStore pebbles, String name, int id){
+        super(pebbles,name,id);
+    }
+    
+    /**
+     * Split the bag's pebbles across segments that are each locked on their own, so
+     * players can draw from the bag at once. The bag must not be in use.
+     * @param numSegments Number of segments, 1 to keep every pebble in one store behind the bag's lock.
+     */
+    void setSegments( int numSegments ) {
+        if( numSegments < 1 ) {
+            throw new IllegalArgumentException("A bag needs at least one segment, not " + numSegments);
+        }
+        if( segments != null && segments.getNumSegments() == numSegments || segments == null && numSegments == 1 ) {
+            return;
+        }
+        PebbleStore current = getStore();
+        if( segments == null ) {
+            wholeStore = current; //Kept to go back to, as the white bag cannot swap stores with a sharded bag.
+        }
+        if( numSegments == 1 ) {
+            segments = null;
+            wholeStore.clear();
+            wholeStore.addAll(current);
+            setStore(wholeStore);
+        } else {
+            segments = new ShardedPebbleStore(numSegments, current.size());
+            segments.addAll(current);
+            setStore(segments);
+        }
+    }
+    
+    /**
+     * Get the number of segments the bag's pebbles are split across.
+     * @return Number of segments, 1 if the bag is not split.
+     */
+    int getSegments() {
+        return segments == null ? 1 : segments.getNumSegments();
+    }
+    
+    /**
+     * Draw a random pebble, locking the bag, unless its store can be drawn from by many
+     * players at once, as it can when the bag is split or its pebbles are kept in atomic slots.
+     * @param random Random generator of the player drawing.
+     * @return Value of the pebble drawn, or EMPTY if the bag holds no pebbles.
+     */
+    int draw( SplittableRandom random ) {
+        PebbleStore store = getStore();
+        if( store instanceof ConcurrentPebbleStore ) {
+            return ((ConcurrentPebbleStore) store).draw(random);
+        }
+        lock();
+        try{
+            return size() == 0 ? EMPTY : take(random.nextInt(0, size()));
+        } finally {
+            unlock();
+        }
+    }
+    
+    /**
+     * Transfer all pebbles from the paired white bag to this bag, which must be locked,
+     * including the pebbles the white bag keeps in stripes.
+     * When this bag is empty the bags simply exchange stores, so the refill takes the same
+     * time however many pebbles are moved. Stores that players use without the bag's lock
+     * are never exchanged, as players may still hold them, so their pebbles are moved instead.
      */
     void refill() {
-        synchronized(getPair()){
-            getPebbles().addAll(getPair().getPebbles());    //Add all pair's pebbles.
-            getPair().clear();   //Remove all pebbles from pair bag.
+        getPair().lock();
+        try{
+            getPair().mergeDeposits();
+            if( size() == 0 && !(getStore() instanceof ConcurrentPebbleStore)
+                    && !(getPair().getStore() instanceof ConcurrentPebbleStore) ) {
+                swapStore(getPair());   //Take the pair's pebbles, leaving it this empty store.
+            } else {
+                if( size() == 0 && getStore() instanceof AtomicPebbleStore ) {
+                    getStore().clear(); //Compact away the slots left by draws.
+                }
+                getPair().getStore().moveTo(getStore());    //Move all pair's pebbles, leaving any deposited since.
+            }
+            getPair().markEmptied();
+        } finally {
+            getPair().unlock();
+        }
+    }
+    
+    /**
+     * Put the pair back to this bag holding the given pebbles and the white bag empty,
+     * reusing the stores the bags already have. Neither bag may be in use.
+     * @param contents Pebbles the bag should hold.
+     */
+    void reset( List<Integer> contents ) {
+        getStore().clear();
+        getPair().clear();
+        for( int pebble : contents ) {
+            getStore().add(pebble);
         }
     }
     
@@ -98,15 +309,21 @@ class BlackBag extends Bag{
     }
     
     /**
-     * Set the white bag to be paired to this bag.
+     * Set the white bag to be paired to this bag, and this bag to be paired to it.
      * @param pair White bag to be paired.
      */
     void setPair(WhiteBag pair){
         this.pair = pair;
+        if( pair != null ) {
+            pair.setPair(this);
+        }
     }   
 }
 
 class WhiteBag extends Bag{
+    private BlackBag pair;
+    private DepositStripes deposits;
+    private volatile boolean emptied = true;
     
     /**
      * Constructs a new white bag with pebbles and a name.
@@ -118,10 +335,126 @@ class WhiteBag extends Bag{
     }
     
     /**
-     * Empty the bag.
+     * Constructs a new white bag with a pebble store and a name.
+     * @param pebbles Store of pebbles to fill the bag.
+     * @param name Name of the bag.
+     */
+    WhiteBag(PebbleStore pebbles, String name){
+        super(pebbles,name);
+    }
+    
+    /**
+     * Constructs a new white bag with a pebble store, a name and an id.
+     * @param pebbles Store of pebbles to fill the bag.
+     * @param name Name of the bag.
+     * @param id Index of the bag's pair within its game.
+     */
+    WhiteBag(PebbleStore pebbles, String name, int id){
+        super(pebbles,name,id);
+    }
+    
+    /**
+     * Get paired black bag.
+     * @return Black bag that is paired to this bag, or null if it has not been paired.
+     */
+    BlackBag getPair(){
+        return pair;
+    }
+    
+    /**
+     * Set the black bag paired to this bag, which is done when the black bag is paired.
+     * @param pair Black bag to be paired.
+     */
+    void setPair(BlackBag pair){
+        this.pair = pair;
+    }
+    
+    /**
+     * Keep the pebbles deposited into the bag in stripes, added to the bag only when its
+     * paired black bag is refilled, rather than locking the bag for every deposit.
+     * Any pebbles already kept in stripes are added to the bag first. The bag must not be in use.
+     * @param numStripes Number of stripes, or 0 to add every deposit straight to the bag.
+     */
+    void setDepositStripes( int numStripes ) {
+        if( numStripes < 0 ) {
+            throw new IllegalArgumentException("Deposits cannot have " + numStripes + " stripes.");
+        }
+        mergeDeposits();
+        deposits = numStripes == 0 ? null : new DepositStripes(numStripes, getStore().size() + 1);
+    }
+    
+    /**
+     * Get the number of stripes deposits are kept in.
+     * @return Number of stripes, or 0 if deposits are added straight to the bag.
+     */
+    int getDepositStripes() {
+        return deposits == null ? 0 : deposits.getNumStripes();
+    }
+    
+    /**
+     * Deposit a pebble, into the depositor's stripe if deposits are kept in stripes,
+     * or else into the bag, locking it unless its pebbles are kept in atomic slots.
+     * @param depositor Number of the player depositing, starting from 1.
+     * @param pebble Pebble to deposit.
+     * @return Whether this was the first deposit since the bag was emptied, so the paired
+     * black bag can be refilled again. Two players depositing at once may both be told so.
+     */
+    boolean deposit( int depositor, int pebble ) {
+        if( deposits != null ) {
+            deposits.add(depositor, pebble);
+        } else if( getStore() instanceof AtomicPebbleStore ) {
+            getStore().add(pebble); //Each deposit claims its own slot, so no lock is needed.
+        } else {
+            lock();
+            try{
+                add(pebble);
+            } finally {
+                unlock();
+            }
+        }
+        //Only read on most deposits, the flag is written once per refill.
+        if( emptied ) {
+            emptied = false;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Record that the bag has been emptied into its paired black bag, so the next
+     * deposit reports the bag holding pebbles again.
+     */
+    void markEmptied() {
+        emptied = true;
+    }
+    
+    /**
+     * Check whether the bag, or any stripe its deposits are kept in, holds pebbles.
+     * The bag is not locked, so the answer may be out of date while players deposit.
+     * @return Whether any pebble has been deposited and not taken out.
+     */
+    boolean hasPebbles() {
+        return size() > 0 || deposits != null && deposits.size() > 0;
+    }
+    
+    /**
+     * Add every pebble kept in stripes to the bag, which must be locked.
+     */
+    void mergeDeposits() {
+        if( deposits != null ) {
+            deposits.drainTo(getStore());
+        }
+    }
+    
+    /**
+     * Empty the bag, and any stripes its deposits are kept in.
      */
     void clear(){
-        this.getPebbles().clear();
+        this.getStore().clear();
+        if( deposits != null ) {
+            deposits.clear();
+        }
+        markEmptied();
     }
 }
 
@@ -0,0 +1,102 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how much splitting the black bags into segments, keeping the discards to
+ * the white bags in stripes, or keeping the pebbles in atomic slots that need no lock,
+ * helps when many players use the same few bags at once.
+ *
+ * Each run plays an impossible game, in which every pebble weighs 11, on platform
+ * threads for a fixed time, then stops it and reports the turns played per second.
+ * Runs with every bag whole are compared with runs with each black bag split into
+ * segments, then also with the discards to each white bag striped, and with whole bags
+ * kept in atomic stores.
+ */
+public final class BagContentionBenchmark {
+    private static final long STOP_MILLIS = 30000;
+
+    private BagContentionBenchmark() {
+    }
+
+    /**
+     * Play an impossible game for a fixed time.
+     * @param numPlayers Number of players.
+     * @param storage How the pebbles inside the bags are stored.
+     * @param segments Number of segments per black bag.
+     * @param stripes Number of stripes of the discards to each white bag, 0 for none.
+     * @param runMillis How long to let the game run.
+     * @return Turns played per second.
+     * @throws InterruptedException If interrupted while waiting for the game.
+     */
+    private static double run( int numPlayers, BagStorage storage, int segments, int stripes, long runMillis )
+            throws InterruptedException {
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(numPlayers * 11, 11));
+        PebbleGame game = new PebbleGame(numPlayers, storage, elevens, elevens, elevens);
+        game.setLogVerbosity(LogVerbosity.off());
+        game.setBlackBagSegments(segments);
+        game.setDepositStripes(stripes);
+        System.gc();
+
+        ExecutorService es = PlayerThreads.PLATFORM.newExecutor(numPlayers);
+        game.start(es);
+        //Only count turns once every player has filled their hand.
+        while( game.getPlayersReady() < numPlayers ) {
+            Thread.sleep(1);
+        }
+        long startTurns = game.getTurnsPlayed();
+        long start = System.nanoTime();
+        Thread.sleep(runMillis);
+        long turns = game.getTurnsPlayed() - startTurns;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        game.stop();
+        es.shutdownNow();
+        if( !es.awaitTermination(STOP_MILLIS, TimeUnit.MILLISECONDS) ) {
+            System.out.println("Players did not stop after " + STOP_MILLIS + "ms.");
+        }
+        return turns / seconds;
+    }
+
+    /**
+     * Run the comparison for each number of players given, or 8, 64 and 256 players.
+     * @param args Numbers of players, optionally followed by "--segments=N" for the segments
+     * per bag and "--stripes=N" for the stripes per bag, both the number of cores if not given,
+     * and "--seconds=N" for the length of each run.
+     * @throws InterruptedException If interrupted while running.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<Integer> playerCounts = new ArrayList<>();
+        int segments = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int stripes = segments;
+        long runMillis = 5000;
+        for( String arg : args ) {
+            if( arg.startsWith("--segments=") ) {
+                segments = Integer.parseInt(arg.substring("--segments=".length()));
+            } else if( arg.startsWith("--stripes=") ) {
+                stripes = Integer.parseInt(arg.substring("--stripes=".length()));
+            } else if( arg.startsWith("--seconds=") ) {
+                runMillis = Long.parseLong(arg.substring("--seconds=".length())) * 1000;
+            } else {
+                playerCounts.add(Integer.parseInt(arg));
+            }
+        }
+        if( playerCounts.isEmpty() ) {
+            playerCounts.add(8);
+            playerCounts.add(64);
+            playerCounts.add(256);
+        }
+        System.out.println(String.format("%-9s %-8s %10s %10s %14s", "players", "storage", "segments", "stripes", "turns/sec"));
+        BagStorage[] storages = { BagStorage.ARRAY, BagStorage.ARRAY, BagStorage.ARRAY, BagStorage.ATOMIC };
+        int[][] runs = { {1, 0}, {segments, 0}, {segments, stripes}, {1, 0} };
+        for( int numPlayers : playerCounts ) {
+            for(int i = 0; i < runs.length; i++){
+                System.out.println(String.format("%-9d %-8s %10d %10d %14.0f", numPlayers, storages[i].name().toLowerCase(),
+                        runs[i][0], runs[i][1], run(numPlayers, storages[i], runs[i][0], runs[i][1], runMillis)));
+            }
+        }
+    }
+}
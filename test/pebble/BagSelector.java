@@ -0,0 +1,171 @@
+package pebble;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chooses random black bags to draw from, only out of the bags that still hold pebbles.
+ *
+ * The set of bags with pebbles is kept as an array that is replaced whenever a bag
+ * empties or fills, so choosing a bag never takes a lock. A player that finds every
+ * bag empty is parked until a bag has pebbles again, rather than spinning, or until
+ * the selector is stopped because the game is over. Every change that makes a bag
+ * available again, or stops the selector, signals the waiting players under the lock
+ * they check the bags with, so they never have to check the bags again on a timer.
+ */
+class BagSelector {
+    private final BlackBag[] bags;
+    private volatile BlackBag[] available;
+    private final ReentrantLock lock;
+    private final Condition bagAvailable;
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a selector over the given black bags, all assumed to have pebbles.
+     * @param bags Black bags to choose from.
+     */
+    BagSelector(BlackBag[] bags){
+        this.bags = bags;
+        available = bags.clone();
+        lock = new ReentrantLock();
+        bagAvailable = lock.newCondition();
+    }
+
+    /**
+     * Choose a random black bag that holds pebbles, waiting while every bag is empty.
+     * The bag may still be emptied by another player before it is locked,
+     * so the caller must check its size again.
+     * @param random Random generator of the player choosing.
+     * @return The black bag chosen, or null if the selector was stopped while every bag was empty.
+     * @throws InterruptedException If interrupted while waiting for a bag.
+     */
+    BlackBag choose( SplittableRandom random ) throws InterruptedException {
+        BlackBag[] current = available;
+        if( current.length == 0 ) {
+            current = awaitAvailable();
+            if( current.length == 0 ) {
+                return null;
+            }
+        }
+        return current[random.nextInt(current.length)];
+    }
+
+    /**
+     * Record that a black bag has no pebbles left, so it is no longer chosen.
+     * @param bag The empty black bag.
+     */
+    void markEmpty( BlackBag bag ) {
+        lock.lock();
+        try{
+            BlackBag[] current = available;
+            int index = indexOf(current, bag);
+            if( index >= 0 ) {
+                BlackBag[] remaining = new BlackBag[current.length - 1];
+                System.arraycopy(current, 0, remaining, 0, index);
+                System.arraycopy(current, index + 1, remaining, index, remaining.length - index);
+                available = remaining;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that a black bag holds pebbles again, waking any waiting players.
+     * @param bag The black bag that has been filled.
+     */
+    void markNonEmpty( BlackBag bag ) {
+        lock.lock();
+        try{
+            BlackBag[] current = available;
+            if( indexOf(current, bag) < 0 ) {
+                BlackBag[] added = new BlackBag[current.length + 1];
+                System.arraycopy(current, 0, added, 0, current.length);
+                added[current.length] = bag;
+                available = added;
+            }
+            bagAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that a pebble was deposited into a black bag's empty white bag, choosing
+     * the black bag again if it was empty, for the player that chooses it to refill.
+     * Takes no lock unless the bag was empty.
+     * @param bag The black bag paired with the white bag deposited into.
+     */
+    void markRefillable( BlackBag bag ) {
+        if( indexOf(available, bag) < 0 ) {
+            markNonEmpty(bag);
+        }
+    }
+
+    /**
+     * Stop waiting for bags, waking every waiting player, once the game is over
+     * or when no other player could fill a bag while waiting.
+     */
+    void stop() {
+        lock.lock();
+        try{
+            stopped = true;
+            bagAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Choose from every bag again and stop no longer, once every bag has been refilled
+     * for a new game, waking any waiting players.
+     */
+    void reset() {
+        lock.lock();
+        try{
+            available = bags; //Arrays of available bags are replaced, never changed, so this can be shared.
+            stopped = false;
+            bagAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Park until at least one black bag holds pebbles, or the selector is stopped.
+     * A bag is only left out by a refill that found its white bag empty too. The
+     * first deposit into that white bag since, or the refilling player finding one
+     * made while it refilled, chooses the bag again through markNonEmpty. As the
+     * available bags only change under the lock, and are checked under it before
+     * parking, the signal that follows can never be missed.
+     * @return The black bags that hold pebbles, empty if stopped.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private BlackBag[] awaitAvailable() throws InterruptedException {
+        lock.lockInterruptibly();
+        try{
+            while( available.length == 0 && !stopped ) {
+                bagAvailable.await();
+            }
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Find a bag inside an array of bags.
+     * @param array Bags to search.
+     * @param bag Bag to find.
+     * @return Index of the bag, or -1 if it is not present.
+     */
+    private static int indexOf( BlackBag[] array, BlackBag bag ) {
+        for(int i = 0; i < array.length; i++){
+            if( array[i] == bag ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,147 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BagSelectorTest {
+    
+    BlackBag bagX;
+    BlackBag bagY;
+    BagSelector testSelector;
+    SplittableRandom random;
+    
+    /**
+     * Constructor for bag selector test.
+     */
+    public BagSelectorTest() {
+    }
+    
+    /**
+     * Setup a selector over two black bags, each holding pebbles [1..3].
+     */
+    @Before
+    public void newSelector() {
+        bagX = new BlackBag(new ArrayList<>(Arrays.asList(1,2,3)), "x");
+        bagY = new BlackBag(new ArrayList<>(Arrays.asList(1,2,3)), "y");
+        testSelector = new BagSelector(new BlackBag[]{bagX, bagY});
+        random = new SplittableRandom();
+    }
+    
+    /**
+     * Test markEmpty method, of class BagSelector.
+     * @throws InterruptedException
+     */
+    @Test
+    public void testMarkEmpty() throws InterruptedException {
+        System.out.println("Testing markEmpty bag selector method.");
+        bagX.getPebbles().clear();
+        testSelector.markEmpty(bagX);
+        for(int i = 0; i < 100; i++){
+            assertSame("An empty bag was chosen", testSelector.choose(random), bagY);
+        }
+    }
+    
+    /**
+     * Test that a player waiting for a bag is woken when a bag is filled.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 5000)
+    public void testWaitForBag() throws InterruptedException {
+        System.out.println("Testing waiting for a bag to be filled.");
+        bagX.getPebbles().clear();
+        bagY.getPebbles().clear();
+        testSelector.markEmpty(bagX);
+        testSelector.markEmpty(bagY);
+        
+        BlackBag[] chosen = new BlackBag[1];
+        Thread waiter = new Thread(() -> {
+            try{
+                chosen[0] = testSelector.choose(random);
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        assertTrue("Player should wait while every bag is empty", waiter.isAlive());
+        
+        bagY.add(4);
+        testSelector.markNonEmpty(bagY);
+        waiter.join();
+        assertSame("Player should choose the filled bag", chosen[0], bagY);
+    }
+    
+    /**
+     * Test that a player waiting for a bag stops waiting when the selector is stopped.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 5000)
+    public void testStop() throws InterruptedException {
+        System.out.println("Testing stopping a player waiting for a bag.");
+        bagX.getPebbles().clear();
+        bagY.getPebbles().clear();
+        testSelector.markEmpty(bagX);
+        testSelector.markEmpty(bagY);
+        
+        BlackBag[] chosen = { bagX };
+        Thread waiter = new Thread(() -> {
+            try{
+                chosen[0] = testSelector.choose(random);
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        assertTrue("Player should wait while every bag is empty", waiter.isAlive());
+        
+        testSelector.stop();
+        waiter.join();
+        assertNull("No bag should be chosen once stopped", chosen[0]);
+    }
+    
+    /**
+     * Test that a player waiting for a bag is woken when the selector is reset.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 5000)
+    public void testResetWakes() throws InterruptedException {
+        System.out.println("Testing resetting a selector with a waiting player.");
+        testSelector.markEmpty(bagX);
+        testSelector.markEmpty(bagY);
+        
+        BlackBag[] chosen = new BlackBag[1];
+        Thread waiter = new Thread(() -> {
+            try{
+                chosen[0] = testSelector.choose(random);
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        assertTrue("Player should wait while every bag is empty", waiter.isAlive());
+        
+        testSelector.reset();
+        waiter.join();
+        assertNotNull("Player should choose a bag once every bag is chosen from again", chosen[0]);
+    }
+    
+    /**
+     * Test that a player waiting for a bag stops waiting when interrupted.
+     */
+    @Test(timeout = 5000, expected = InterruptedException.class)
+    public void testInterruptedWait() throws InterruptedException {
+        System.out.println("Testing interrupting a player waiting for a bag.");
+        bagX.getPebbles().clear();
+        bagY.getPebbles().clear();
+        testSelector.markEmpty(bagX);
+        testSelector.markEmpty(bagY);
+        Thread.currentThread().interrupt();
+        testSelector.choose(random);
+    }
+}
@@ -3,7 +3,9 @@ package pebble;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -54,4 +56,80 @@ public class BlackBagTest {
         assertEquals("White bag should be empty", testWhiteBag.getPebbles(), Arrays.asList());
     }
     
+    /**
+     * Test that refilling an empty black bag exchanges the stores of the bags
+     * and no pebbles are lost or added.
+     */
+    @Test
+    public void testRefillSwap() {
+        System.out.println("Testing refill of an empty Black Bag by swapping stores.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 1; i <= 1000; i++){
+            pebbles.add(i % 37 + 1);
+        }
+        PebbleStore whiteStore = new ArrayPebbleStore(pebbles);
+        PebbleStore blackStore = new ArrayPebbleStore(0);
+        WhiteBag whiteBag = new WhiteBag(whiteStore, "b");
+        BlackBag blackBag = new BlackBag(blackStore, "b");
+        blackBag.setPair(whiteBag);
+        
+        blackBag.refill();
+        
+        assertSame("Black bag should now hold the white bag's store", blackBag.getStore(), whiteStore);
+        assertSame("White bag should now hold the black bag's empty store", whiteBag.getStore(), blackStore);
+        assertEquals("Pebbles got lost or added", blackBag.getPebbles(), pebbles);
+        assertEquals("White bag should be empty", whiteBag.size(), 0);
+    }
+    
+    /**
+     * Test that refilling a black bag that still has pebbles keeps its own pebbles.
+     */
+    @Test
+    public void testRefillNotEmpty() {
+        System.out.println("Testing refill of a Black Bag that is not empty.");
+        WhiteBag whiteBag = new WhiteBag(new ArrayPebbleStore(Arrays.asList(2,3)), "c");
+        BlackBag blackBag = new BlackBag(new ArrayPebbleStore(Arrays.asList(1)), "c");
+        blackBag.setPair(whiteBag);
+        
+        blackBag.refill();
+        
+        assertEquals("Black bag should have its pebble and the white bag's", blackBag.getPebbles(), Arrays.asList(1,2,3));
+        assertEquals("White bag should be empty", whiteBag.size(), 0);
+    }
+    
+    /**
+     * Test that a black bag split into segments draws every pebble once, and refills
+     * across its segments without taking the white bag's store.
+     */
+    @Test
+    public void testSplitRefill() {
+        System.out.println("Testing draws and refill of a Black Bag split into segments.");
+        PebbleStore whiteStore = new ArrayPebbleStore(Arrays.asList(6,7,8,9));
+        WhiteBag whiteBag = new WhiteBag(whiteStore, "d");
+        BlackBag blackBag = new BlackBag(new ArrayPebbleStore(Arrays.asList(1,2,3,4,5)), "d");
+        blackBag.setPair(whiteBag);
+        blackBag.setSegments(3);
+        assertEquals("Bag should be split into 3 segments", 3, blackBag.getSegments());
+        
+        List<Integer> drawn = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for(int i = 0; i < 5; i++){
+            drawn.add(blackBag.draw(random));
+        }
+        assertEquals("Empty bag should draw nothing", BlackBag.EMPTY, blackBag.draw(random));
+        Collections.sort(drawn);
+        assertEquals("Every pebble should be drawn once", Arrays.asList(1,2,3,4,5), drawn);
+        
+        blackBag.refill();
+        assertNotSame("Split bag should not take the white bag's store", whiteStore, blackBag.getStore());
+        assertSame("White bag should keep its store", whiteStore, whiteBag.getStore());
+        assertEquals("White bag should be empty", 0, whiteBag.size());
+        //Dealt on from the segment after the last pebble added.
+        assertEquals("Pebbles should be spread across the segments", Arrays.asList(7,8,6,9), blackBag.getPebbles());
+        
+        blackBag.setSegments(1);
+        assertEquals("Bag should be whole again", 1, blackBag.getSegments());
+        assertEquals("Pebbles should be kept when made whole", Arrays.asList(7,8,6,9), blackBag.getPebbles());
+    }
+    
 }
@@ -0,0 +1,64 @@
+package pebble;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses gzip compressed player output files back to their text.
+ */
+public final class CompressedLogReader {
+    
+    private CompressedLogReader() {
+    }
+    
+    /**
+     * Decompress a player output file, writing the text to a stream.
+     * @param compressedLog Path of the compressed output file.
+     * @param out Stream to write the text to.
+     * @throws IOException If the file cannot be read or is not gzip compressed.
+     */
+    static void decompress( Path compressedLog, OutputStream out ) throws IOException {
+        try( InputStream in = new GZIPInputStream(Files.newInputStream(compressedLog), 64 * 1024) ) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while( (read = in.read(buffer)) != -1 ) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+    
+    /**
+     * Decompress player output files, next to the compressed files without their ".gz",
+     * or to the console if only one file is given with "-" after it.
+     * @param args Paths of the compressed output files.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if( args.length == 0 ) {
+            System.out.println("Please provide the compressed output files to decompress, e.g.\n"
+                               + "java pebble.CompressedLogReader \"playerOutputs/Player 1.txt.gz\" [-]");
+            return;
+        }
+        if( args.length == 2 && args[1].equals("-") ) {
+            decompress(Paths.get(args[0]), System.out);
+            System.out.flush();
+            return;
+        }
+        for( String arg : args ) {
+            if( !arg.endsWith(".gz") ) {
+                System.out.println("Skipping " + arg + ", it is not a compressed output file (.gz).");
+                continue;
+            }
+            Path text = Paths.get(arg.substring(0, arg.length() - 3));
+            try( OutputStream out = Files.newOutputStream(text) ) {
+                decompress(Paths.get(arg), out);
+            }
+            System.out.println("Decompressed " + arg + " to " + text);
+        }
+    }
+}
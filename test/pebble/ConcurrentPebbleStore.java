@@ -0,0 +1,17 @@
+package pebble;
+
+import java.util.SplittableRandom;
+
+/**
+ * Pebble store that players can draw from at the same time as each other, without
+ * locking the bag it belongs to.
+ */
+interface ConcurrentPebbleStore extends PebbleStore {
+
+    /**
+     * Take a random pebble, safe to call from many players at once.
+     * @param random Random generator of the player drawing.
+     * @return Value of the pebble taken, or BlackBag.EMPTY if the store holds no pebbles.
+     */
+    int draw( SplittableRandom random );
+}
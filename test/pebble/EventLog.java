@@ -0,0 +1,205 @@
+package pebble;
+
+import java.util.Arrays;
+
+/**
+ * Log of the events of a player's game, kept as fixed size records in a growable
+ * int array so recording an event never builds any text.
+ *
+ * A log given a sink does not grow, it hands each full array of records to the
+ * sink and carries on recording into the empty array the sink gives back.
+ */
+class EventLog {
+
+    /**
+     * Receiver of the records of a log with a fixed amount of memory.
+     */
+    interface Sink {
+
+        /**
+         * Take a full array of records from a log.
+         * @param events Array of records, which now belongs to the sink.
+         * @param size Number of events recorded in the array.
+         * @return Empty array of the same length for the log to record into.
+         */
+        int[] flush( int[] events, int size );
+    }
+
+    static final int SETUP = 0;
+    static final int FILL_DRAW = 1;
+    static final int HAND_FULL = 2;
+    static final int DRAW = 3;
+    static final int REFILL = 4;
+    static final int DISCARD = 5;
+    static final int WIN = 6;
+    static final int LOSS = 7;
+    static final int WAITING = 8;
+    static final int TOLD_READY = 9;
+    static final int ANNOUNCED_READY = 10;
+    static final int INTERRUPTED = 11;
+    static final int HAND_RESET = 12;
+    static final int HAND_PEBBLE = 13;
+
+    static final int FIELDS = 8;
+    private static final int TYPE = 0;
+    private static final int PEBBLE = 1;
+    private static final int BAG = 2;
+    private static final int TURN = 3;
+    private static final int HAND_VALUE = 4;
+    private static final int DETAIL = 5;
+    private static final int TIME_HIGH = 6;
+    private static final int TIME_LOW = 7;
+
+    private int[] events;
+    private int size;
+    private Sink sink;
+    private boolean timed;
+
+    /**
+     * Constructs an empty log.
+     * @param capacity Number of events the log can hold before growing.
+     */
+    EventLog(int capacity){
+        events = new int[Math.max(capacity, 1) * FIELDS];
+    }
+
+    /**
+     * Constructs a log reading the records of an array, such as one given to a sink.
+     * @param events Array of records.
+     * @param size Number of events recorded in the array.
+     */
+    EventLog(int[] events, int size){
+        this.events = events;
+        this.size = size;
+    }
+
+    /**
+     * Send full arrays of records to a sink from now on, instead of growing.
+     * @param sink Receiver of the records.
+     */
+    void setSink( Sink sink ) {
+        this.sink = sink;
+    }
+
+    /**
+     * Stamp every event recorded from now on with the time it happened, for outputs that
+     * put the logs of different players back in order. Events are otherwise recorded
+     * with a time of 0, saving reading the clock on every turn.
+     * @param timed Whether to record the time of events.
+     */
+    void setTimed( boolean timed ) {
+        this.timed = timed;
+    }
+
+    /**
+     * Hand every event recorded so far to the sink, if the log has one.
+     */
+    void flush() {
+        if( sink != null && size > 0 ) {
+            events = sink.flush(events, size);
+            size = 0;
+        }
+    }
+
+    /**
+     * Record an event with no pebble or bag.
+     * @param type Type of the event.
+     * @param turn Turn the player was on.
+     * @param handValue Value of the player's hand after the event.
+     */
+    void record( int type, int turn, int handValue ) {
+        record(type, 0, -1, turn, handValue, 0);
+    }
+
+    /**
+     * Record an event, stamped with the time it happened if the log is timed.
+     * @param type Type of the event.
+     * @param pebble Pebble drawn or discarded.
+     * @param bag Id of the bag involved.
+     * @param turn Turn the player was on.
+     * @param handValue Value of the player's hand after the event.
+     * @param detail Extra value of the event, such as the hand index of a discard.
+     */
+    void record( int type, int pebble, int bag, int turn, int handValue, int detail ) {
+        int offset = size * FIELDS;
+        if( offset == events.length ) {
+            if( sink != null ) {
+                flush();
+                offset = 0;
+            } else {
+                events = Arrays.copyOf(events, events.length * 2);
+            }
+        }
+        events[offset + TYPE] = type;
+        events[offset + PEBBLE] = pebble;
+        events[offset + BAG] = bag;
+        events[offset + TURN] = turn;
+        events[offset + HAND_VALUE] = handValue;
+        events[offset + DETAIL] = detail;
+        long time = timed ? System.nanoTime() : 0;
+        events[offset + TIME_HIGH] = (int) (time >>> 32);
+        events[offset + TIME_LOW] = (int) time;
+        size++;
+    }
+
+    /**
+     * Get the number of events recorded.
+     * @return Number of events.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove every event, keeping the space they used.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    int type( int event ) {
+        return field(event, TYPE);
+    }
+
+    int pebble( int event ) {
+        return field(event, PEBBLE);
+    }
+
+    int bag( int event ) {
+        return field(event, BAG);
+    }
+
+    int turn( int event ) {
+        return field(event, TURN);
+    }
+
+    int handValue( int event ) {
+        return field(event, HAND_VALUE);
+    }
+
+    int detail( int event ) {
+        return field(event, DETAIL);
+    }
+
+    /**
+     * Get the time of a recorded event, from System.nanoTime.
+     * @param event Index of the event.
+     * @return Time the event was recorded, or 0 if the log was not timed.
+     */
+    long time( int event ) {
+        return ((long) field(event, TIME_HIGH) << 32) | (field(event, TIME_LOW) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Read a field of a recorded event.
+     * @param event Index of the event.
+     * @param field Field to read.
+     * @return Value of the field.
+     */
+    private int field( int event, int field ) {
+        if( event < 0 || event >= size ) {
+            throw new IndexOutOfBoundsException("Event: " + event + ", Size: " + size);
+        }
+        return events[event * FIELDS + field];
+    }
+}
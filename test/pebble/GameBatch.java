@@ -0,0 +1,260 @@
+package pebble;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many independent games of the same setup across every core, to estimate
+ * how often each player wins and how long games take.
+ *
+ * Each game is played one turn at a time on a single thread with nothing logged, the
+ * players filling their hands and taking their turns in a shuffled order so no player
+ * gains from moving first, and the games are split between the threads of a fork join
+ * pool. Games are borrowed from a pool of games made from the same loaded contents, and
+ * reset once played, so each thread keeps reusing the same bags and players. Game i, and
+ * its order of turns, is seeded from the batch seed and i, so a batch gives the same
+ * statistics however the games are split.
+ */
+final class GameBatch {
+    private static final int GAMES_PER_TASK = 16;
+    private static final int HISTOGRAM_ROWS = 20;
+
+    private GameBatch() {
+    }
+
+    /**
+     * Play a batch of games on a pool, waiting for every game to finish.
+     * @param pool Pool to play the games on.
+     * @param numPlayers Number of players in each game.
+     * @param blackBagContents Pebbles of each black bag, which are copied and never changed.
+     * @param games Number of games to play.
+     * @param seed Seed of the batch.
+     * @param timeLimitNanos Time after which a game is stopped without a winner.
+     * @return Statistics of every game played.
+     */
+    static Result run( ForkJoinPool pool, int numPlayers, List<List<Integer>> blackBagContents,
+                       int games, long seed, long timeLimitNanos ) {
+        long start = System.nanoTime();
+        Setup setup = new Setup(numPlayers, blackBagContents, seed, timeLimitNanos);
+        Result result = pool.invoke(new Games(setup, 0, games));
+        result.seed = seed;
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * What every game of a batch shares.
+     */
+    private static class Setup {
+        private final int numPlayers;
+        private final GamePool games;
+        private final long seed;
+        private final long timeLimitNanos;
+
+        private Setup(int numPlayers, List<List<Integer>> blackBagContents, long seed, long timeLimitNanos){
+            this.numPlayers = numPlayers;
+            //The array store copies the pebbles, so the loaded contents are never changed.
+            games = new GamePool(numPlayers, BagStorage.ARRAY, blackBagContents);
+            this.seed = seed;
+            this.timeLimitNanos = timeLimitNanos;
+        }
+
+        /**
+         * Play a single game of the batch.
+         * @param game Index of the game in the batch.
+         * @param result Statistics to add the game to.
+         */
+        private void play( int game, Result result ) {
+            PebbleGame pebbleGame = games.acquire();
+            pebbleGame.setLogVerbosity(LogVerbosity.off());
+            pebbleGame.setSeed(seed + game);
+            if( pebbleGame.playLockstep(TurnOrder.SHUFFLED, timeLimitNanos) ) {
+                result.addWin(pebbleGame.getWinner(), pebbleGame.getWinningTurns(),
+                        pebbleGame.getTimeToWinNanos());
+            } else {
+                result.stopped++;
+            }
+            games.release(pebbleGame);
+        }
+    }
+
+    /**
+     * Plays a range of the batch's games, splitting it in half until it is small enough.
+     */
+    private static class Games extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+        private final Setup setup;
+        private final int from;
+        private final int to;
+
+        private Games(Setup setup, int from, int to){
+            this.setup = setup;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if( to - from <= GAMES_PER_TASK ) {
+                Result result = new Result(setup.numPlayers);
+                for(int game = from; game < to; game++){
+                    setup.play(game, result);
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            Games firstHalf = new Games(setup, from, middle);
+            firstHalf.fork();
+            Result result = new Games(setup, middle, to).compute();
+            result.merge(firstHalf.join());
+            return result;
+        }
+    }
+
+    /**
+     * Statistics of the games of a batch.
+     */
+    static final class Result {
+        private final long[] wins;
+        private long[] winningTurns;
+        private long stopped;
+        private long totalTimeToWinNanos;
+        private long seed;
+        private long elapsedNanos;
+
+        /**
+         * @param numPlayers Number of players in each game.
+         */
+        Result(int numPlayers){
+            wins = new long[numPlayers];
+            winningTurns = new long[1];
+        }
+
+        /**
+         * Add a game that a player won.
+         * @param winner Number of the winner, starting from 1.
+         * @param turns Number of turns the winner played.
+         * @param timeToWinNanos Time from the first player filling their hand to the win.
+         */
+        void addWin( int winner, int turns, long timeToWinNanos ) {
+            wins[winner - 1]++;
+            if( turns >= winningTurns.length ) {
+                winningTurns = Arrays.copyOf(winningTurns, Math.max(turns + 1, winningTurns.length * 2));
+            }
+            winningTurns[turns]++;
+            totalTimeToWinNanos += timeToWinNanos;
+        }
+
+        /**
+         * Add the statistics of other games of the same batch.
+         * @param other Statistics to add.
+         */
+        void merge( Result other ) {
+            for(int i = 0; i < wins.length; i++){
+                wins[i] += other.wins[i];
+            }
+            if( other.winningTurns.length > winningTurns.length ) {
+                winningTurns = Arrays.copyOf(winningTurns, other.winningTurns.length);
+            }
+            for(int turns = 0; turns < other.winningTurns.length; turns++){
+                winningTurns[turns] += other.winningTurns[turns];
+            }
+            stopped += other.stopped;
+            totalTimeToWinNanos += other.totalTimeToWinNanos;
+        }
+
+        /**
+         * @param player Number of the player, starting from 1.
+         * @return Number of games the player won.
+         */
+        long getWins( int player ) {
+            return wins[player - 1];
+        }
+
+        /**
+         * @return Number of games won by any player.
+         */
+        long getGamesWon() {
+            long won = 0;
+            for( long playerWins : wins ) {
+                won += playerWins;
+            }
+            return won;
+        }
+
+        /**
+         * @return Number of games stopped without a winner.
+         */
+        long getGamesStopped() {
+            return stopped;
+        }
+
+        /**
+         * @param turns Number of turns.
+         * @return Number of games won after the winner played that many turns.
+         */
+        long getGamesWonIn( int turns ) {
+            return turns < winningTurns.length ? winningTurns[turns] : 0;
+        }
+
+        /**
+         * @return Mean time from the first player filling their hand to the win, in nanoseconds,
+         * or -1 if no game was won.
+         */
+        double getMeanTimeToWinNanos() {
+            long won = getGamesWon();
+            return won == 0 ? -1 : (double) totalTimeToWinNanos / won;
+        }
+
+        /**
+         * Build a report of the batch for the console.
+         * @return Text of the report.
+         */
+        String report() {
+            long won = getGamesWon();
+            long games = won + stopped;
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Played %d games with seed %d in %.3fs (%.0f games/sec),"
+                    + " %d stopped without a winner.%n",
+                    games, seed, elapsedNanos / 1e9, games / (elapsedNanos / 1e9), stopped));
+            if( won == 0 ) {
+                return text.toString();
+            }
+            text.append(String.format("Mean time to win: %.3fms%n", getMeanTimeToWinNanos() / 1e6));
+            text.append(String.format("%nWins per player:%n"));
+            for(int player = 1; player <= wins.length; player++){
+                text.append(String.format("  %-10s %12d %7.2f%%%n",
+                        PebbleGame.playerName(player), wins[player - 1], 100.0 * wins[player - 1] / won));
+            }
+            //Group the winning turns into rows of equal width, leaving out the empty rows at either end.
+            int first = 0;
+            while( winningTurns[first] == 0 ) {
+                first++;
+            }
+            int last = winningTurns.length - 1;
+            while( winningTurns[last] == 0 ) {
+                last--;
+            }
+            int width = Math.max(1, (last - first + HISTOGRAM_ROWS) / HISTOGRAM_ROWS);
+            long[] rows = new long[(last - first) / width + 1];
+            long tallest = 0;
+            for(int turns = first; turns <= last; turns++){
+                rows[(turns - first) / width] += winningTurns[turns];
+            }
+            for( long row : rows ) {
+                tallest = Math.max(tallest, row);
+            }
+            text.append(String.format("%nTurns played by the winner:%n"));
+            for(int row = 0; row < rows.length; row++){
+                int low = first + row * width;
+                String range = width == 1 ? String.valueOf(low) : low + "-" + (low + width - 1);
+                char[] bar = new char[(int) (50 * rows[row] / tallest)];
+                Arrays.fill(bar, '#');
+                text.append(String.format("  %-13s %12d %s%n", range, rows[row], new String(bar)));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package pebble;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GameBatchTest {
+    
+    ForkJoinPool pool;
+    List<List<Integer>> contents;
+    
+    /**
+     * Constructor for game batch test.
+     */
+    public GameBatchTest() {
+    }
+    
+    /**
+     * Setup a pool of 4 threads, and three black bags that 4 players can win with.
+     */
+    @Before
+    public void newPool() {
+        pool = new ForkJoinPool(4);
+        contents = TestGames.blackBagContents(4);
+    }
+    
+    @After
+    public void stopPool() {
+        pool.shutdownNow();
+    }
+    
+    /**
+     * Play the same seeded batch twice.
+     * @result Every game is counted once, and both batches give the same statistics.
+     */
+    @Test(timeout = 60000)
+    public void testReproducible() {
+        System.out.println("Testing reproducible game batches.");
+        GameBatch.Result first = GameBatch.run(pool, 4, contents, 200, 42, TimeUnit.SECONDS.toNanos(20));
+        GameBatch.Result second = GameBatch.run(new ForkJoinPool(1), 4, contents, 200, 42, TimeUnit.SECONDS.toNanos(20));
+        assertEquals("Every game should be counted", 200, first.getGamesWon() + first.getGamesStopped());
+        long winsCounted = 0;
+        for(int player = 1; player <= 4; player++){
+            assertEquals("Wins should not depend on the threads", first.getWins(player), second.getWins(player));
+            winsCounted += first.getWins(player);
+        }
+        assertEquals("Wins of each player should add up", first.getGamesWon(), winsCounted);
+        long turnsCounted = 0;
+        for(int turns = 0; turns < 10000; turns++){
+            assertEquals("Winning turns should not depend on the threads", first.getGamesWonIn(turns), second.getGamesWonIn(turns));
+            turnsCounted += first.getGamesWonIn(turns);
+        }
+        assertEquals("Every win should have its turns counted", first.getGamesWon(), turnsCounted);
+        assertTrue("Games should take time to win", first.getMeanTimeToWinNanos() > 0);
+        assertTrue("Report should list the players", first.report().contains("Player 4"));
+    }
+    
+    /**
+     * Play a large seeded batch of games in which every player has the same chances.
+     * @result The first player wins no more often than the last, beyond noise, as the
+     * players fill their hands and take their turns in a shuffled order.
+     */
+    @Test(timeout = 60000)
+    public void testNoFirstMoverBias() {
+        System.out.println("Testing a batch of games is fair to every player.");
+        GameBatch.Result result = GameBatch.run(pool, 4, contents, 40000, 7, TimeUnit.SECONDS.toNanos(20));
+        double firstShare = (double) result.getWins(1) / result.getGamesWon();
+        double lastShare = (double) result.getWins(4) / result.getGamesWon();
+        //Playing in order of number gave the first player 1.8% more of the wins than the last.
+        assertTrue("First player should not be favoured, won " + firstShare + " against " + lastShare,
+                firstShare - lastShare < 0.01);
+    }
+    
+    /**
+     * Play a batch of impossible games, in which every pebble weighs 11.
+     * @result Every game is stopped once its time runs out, without a winner,
+     * and the loaded contents are left as they were.
+     */
+    @Test(timeout = 60000)
+    public void testImpossible() {
+        System.out.println("Testing a batch of impossible games.");
+        List<Integer> elevens = Collections.nCopies(22, 11);
+        List<List<Integer>> impossible = Arrays.asList(elevens, elevens);
+        GameBatch.Result result = GameBatch.run(pool, 2, impossible, 50, 7, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals("No game should be won", 0, result.getGamesWon());
+        assertEquals("Every game should be stopped", 50, result.getGamesStopped());
+        assertEquals("No mean time without a win", -1, result.getMeanTimeToWinNanos(), 0);
+        assertEquals("Loaded contents should not change", Collections.nCopies(22, 11), impossible.get(0));
+    }
+}
@@ -0,0 +1,350 @@
+package pebble;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A single file holding the events of every player of a game, and the replay tool
+ * that turns it back into text.
+ *
+ * The file starts with a header, followed by blocks of event records appended in the
+ * order the players' logs handed them over, each block headed by the player's number
+ * and its number of events. When the game ends an index of where each player's blocks
+ * start is appended, followed by the position of the index. A file cut short before
+ * its index was written can still be read, by stepping through the block headers.
+ *
+ * Only one block per player is read into memory at a time, however large the file.
+ */
+public final class GameEventFile implements Closeable {
+    static final int MAGIC = 0x50424556; //"PBEV"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 3 * Integer.BYTES;
+    static final int BLOCK_HEADER_BYTES = 2 * Integer.BYTES;
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final FileChannel channel;
+    private final int numPlayers;
+    private final Index index;
+
+    private GameEventFile(FileChannel channel, int numPlayers, Index index){
+        this.channel = channel;
+        this.numPlayers = numPlayers;
+        this.index = index;
+    }
+
+    /**
+     * Positions of the blocks of each player inside an event file.
+     */
+    static final class Index {
+        private final long[][] offsets;
+        private final int[] counts;
+
+        /**
+         * @param numPlayers Number of players in the game.
+         */
+        Index(int numPlayers){
+            offsets = new long[numPlayers][1];
+            counts = new int[numPlayers];
+        }
+
+        /**
+         * Add the next block of a player.
+         * @param player Number of the player, starting from 1.
+         * @param offset Position of the block in the file.
+         */
+        void add( int player, long offset ) {
+            int i = player - 1;
+            if( counts[i] == offsets[i].length ) {
+                offsets[i] = Arrays.copyOf(offsets[i], counts[i] * 2);
+            }
+            offsets[i][counts[i]++] = offset;
+        }
+
+        /**
+         * @param player Number of the player, starting from 1.
+         * @return Number of blocks of the player.
+         */
+        int count( int player ) {
+            return counts[player - 1];
+        }
+
+        /**
+         * @param player Number of the player, starting from 1.
+         * @param block Index of the block among the player's blocks.
+         * @return Position of the block in the file.
+         */
+        long offset( int player, int block ) {
+            return offsets[player - 1][block];
+        }
+    }
+
+    /**
+     * Open an event file for reading.
+     * @param path Path of the event file.
+     * @return The opened file.
+     * @throws IOException If the file cannot be read or is not an event file.
+     */
+    static GameEventFile open( Path path ) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try{
+            if( channel.size() < HEADER_BYTES ) {
+                throw new IOException("Not a game event file: " + path);
+            }
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if( header.getInt() != MAGIC ) {
+                throw new IOException("Not a game event file: " + path);
+            }
+            int version = header.getInt();
+            if( version != VERSION ) {
+                throw new IOException("Unsupported game event file version: " + version);
+            }
+            int numPlayers = header.getInt();
+            Index index = readIndex(channel, numPlayers);
+            if( index == null ) {
+                index = findBlocks(channel, numPlayers);
+            }
+            return new GameEventFile(channel, numPlayers, index);
+        } catch( IOException | RuntimeException e ) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the index from the end of a file.
+     * @param channel The file.
+     * @param numPlayers Number of players in the game.
+     * @return The index, or null if the file does not end with one.
+     * @throws IOException If the file cannot be read.
+     */
+    private static Index readIndex( FileChannel channel, int numPlayers ) throws IOException {
+        long size = channel.size();
+        if( size < HEADER_BYTES + TRAILER_BYTES ) {
+            return null;
+        }
+        ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+        long position = trailer.getLong();
+        if( trailer.getInt() != MAGIC || position < HEADER_BYTES || position > size - TRAILER_BYTES ) {
+            return null;
+        }
+        ByteBuffer stored = read(channel, position, (int) (size - TRAILER_BYTES - position));
+        Index index = new Index(numPlayers);
+        for(int player = 1; player <= numPlayers; player++){
+            int blocks = stored.getInt();
+            for(int block = 0; block < blocks; block++){
+                index.add(player, stored.getLong());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Build the index of a file without one, by stepping through the block headers.
+     * A block cut short at the end of the file is left out.
+     * @param channel The file.
+     * @param numPlayers Number of players in the game.
+     * @return The index of every complete block.
+     * @throws IOException If the file cannot be read.
+     */
+    private static Index findBlocks( FileChannel channel, int numPlayers ) throws IOException {
+        Index index = new Index(numPlayers);
+        long size = channel.size();
+        long position = HEADER_BYTES;
+        while( position + BLOCK_HEADER_BYTES <= size ) {
+            ByteBuffer header = read(channel, position, BLOCK_HEADER_BYTES);
+            int player = header.getInt();
+            int events = header.getInt();
+            long end = position + BLOCK_HEADER_BYTES + (long) events * EventLog.FIELDS * Integer.BYTES;
+            if( player < 1 || player > numPlayers || events < 0 || end > size ) {
+                break;
+            }
+            index.add(player, position);
+            position = end;
+        }
+        return index;
+    }
+
+    /**
+     * @return Number of players in the game.
+     */
+    int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Write the text log of a single player, as it would be in the player's output file.
+     * @param player Number of the player, starting from 1.
+     * @param out Where to write the text.
+     * @throws IOException If the file cannot be read or the text cannot be written.
+     */
+    void writePlayerLog( int player, Appendable out ) throws IOException {
+        if( player < 1 || player > numPlayers ) {
+            throw new IllegalArgumentException("Player must be between 1 and " + numPlayers + ", not " + player);
+        }
+        Cursor cursor = new Cursor(player);
+        while( cursor.advance() ) {
+            cursor.writeEvent(out);
+        }
+    }
+
+    /**
+     * Write the events of every player as one timeline, in the order they happened.
+     * @param out Where to write the text.
+     * @throws IOException If the file cannot be read or the text cannot be written.
+     */
+    void writeTimeline( Appendable out ) throws IOException {
+        PriorityQueue<Cursor> next = new PriorityQueue<>(Math.max(numPlayers, 1));
+        for(int player = 1; player <= numPlayers; player++){
+            Cursor cursor = new Cursor(player);
+            if( cursor.advance() ) {
+                next.add(cursor);
+            }
+        }
+        while( !next.isEmpty() ) {
+            Cursor cursor = next.poll();
+            cursor.writeEvent(out);
+            if( cursor.advance() ) {
+                next.add(cursor);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read a block of events.
+     * @param offset Position of the block in the file.
+     * @return Log holding the events of the block.
+     * @throws IOException If the file cannot be read.
+     */
+    private EventLog readBlock( long offset ) throws IOException {
+        int events = read(channel, offset, BLOCK_HEADER_BYTES).getInt(Integer.BYTES);
+        int[] records = new int[events * EventLog.FIELDS];
+        read(channel, offset + BLOCK_HEADER_BYTES, records.length * Integer.BYTES).asIntBuffer().get(records);
+        return new EventLog(records, events);
+    }
+
+    /**
+     * Read bytes from a position of a file.
+     * @param channel The file.
+     * @param position Position to read from.
+     * @param length Number of bytes to read.
+     * @return Buffer holding the bytes, ready to be read.
+     * @throws IOException If the file ends before all the bytes are read.
+     */
+    private static ByteBuffer read( FileChannel channel, long position, int length ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while( buffer.hasRemaining() ) {
+            if( channel.read(buffer, position + buffer.position()) < 0 ) {
+                throw new IOException("Game event file ended unexpectedly.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Position in the events of one player, holding only the player's current block.
+     */
+    private class Cursor implements Comparable<Cursor> {
+        private final int player;
+        private final LogRenderer renderer;
+        private final List<Integer> replayedHand;
+        private int nextBlock;
+        private EventLog block;
+        private int event;
+
+        private Cursor(int player){
+            this.player = player;
+            renderer = new LogRenderer(PebbleGame.playerName(player));
+            replayedHand = new ArrayList<>();
+            event = -1;
+        }
+
+        /**
+         * Move to the player's next event, reading the next block if needed.
+         * @return Whether the player has another event.
+         * @throws IOException If the file cannot be read.
+         */
+        private boolean advance() throws IOException {
+            event++;
+            while( block == null || event >= block.size() ) {
+                if( nextBlock == index.count(player) ) {
+                    return false;
+                }
+                block = readBlock(index.offset(player, nextBlock++));
+                event = 0;
+            }
+            return true;
+        }
+
+        /**
+         * Write the text of the current event, unless it only records the hand.
+         * @param out Where to write the text.
+         * @throws IOException If the text cannot be written.
+         */
+        private void writeEvent( Appendable out ) throws IOException {
+            String entry = renderer.describe(block, event, replayedHand);
+            if( entry != null ) {
+                out.append(entry).append(System.lineSeparator());
+            }
+        }
+
+        @Override
+        public int compareTo( Cursor other ) {
+            //Compare by difference, as System.nanoTime values may overflow.
+            int byTime = Long.signum(block.time(event) - other.block.time(other.event));
+            return byTime != 0 ? byTime : Integer.compare(player, other.player);
+        }
+    }
+
+    /**
+     * Replay an event file, writing a single player's log, or the timeline of every
+     * player if no player is given, to the console.
+     * @param args Path of the event file, then optionally the number of a player.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if( args.length == 0 || args.length > 2 ) {
+            System.out.println("Please provide the event file to replay, and optionally a player number, e.g.\n"
+                               + "java pebble.GameEventFile playerOutputs/game.events [1]");
+            return;
+        }
+        try( GameEventFile file = open(Paths.get(args[0])) ) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+            if( args.length == 2 ) {
+                int player;
+                try{
+                    player = Integer.parseInt(args[1].trim());
+                } catch( NumberFormatException e ) {
+                    System.out.println("Player must be a number, not " + args[1]);
+                    return;
+                }
+                if( player < 1 || player > file.getNumPlayers() ) {
+                    System.out.println("Player must be between 1 and " + file.getNumPlayers() + ", not " + player);
+                    return;
+                }
+                file.writePlayerLog(player, out);
+            } else {
+                file.writeTimeline(out);
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package pebble;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class GameEventFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Constructor for game event file test.
+     */
+    public GameEventFileTest() {
+    }
+
+    /**
+     * Write an event file for two players, whose logs hand over their records every
+     * 4 events, in turns, each drawing the turn number as the pebble.
+     * @param recorded Every event recorded, as "player:turn", in the order recorded.
+     * @return Path of the event file.
+     * @throws IOException
+     */
+    private Path writeEventFile( List<String> recorded ) throws IOException {
+        PlayerLogWriter writer = new PlayerLogWriter(folder.getRoot().toPath(), 2, false);
+        EventLog[] logs = { new EventLog(4), new EventLog(4) };
+        writer.openEventFile("game.events", 2);
+        writer.openEvents(logs[0], 1);
+        writer.openEvents(logs[1], 2);
+        writer.start();
+        for(int turn = 0; turn < 100; turn++){
+            for(int player = 1; player <= 2; player++){
+                //Make sure no two events share a time, which would leave their order to the player number.
+                long previous = System.nanoTime();
+                while( System.nanoTime() == previous ) {
+                    Thread.onSpinWait();
+                }
+                logs[player - 1].record(EventLog.DRAW, turn, 0, turn, turn, 0);
+                recorded.add(player + ":" + turn);
+            }
+        }
+        logs[0].flush();
+        logs[1].flush();
+        writer.close();
+        return folder.getRoot().toPath().resolve("game.events");
+    }
+
+    /**
+     * Build the text of the draws of a player, as the player's output file would hold it.
+     * @param player Number of the player.
+     * @param turns Number of turns drawn.
+     * @return Text of the draws.
+     */
+    private String playerText( int player, int turns ) {
+        LogRenderer renderer = new LogRenderer(PebbleGame.playerName(player));
+        EventLog log = new EventLog(turns);
+        for(int turn = 0; turn < turns; turn++){
+            log.record(EventLog.DRAW, turn, 0, turn, turn, 0);
+        }
+        List<Integer> replayedHand = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for(int event = 0; event < turns; event++){
+            text.append(renderer.describe(log, event, replayedHand)).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Replay the log of each player of an event file.
+     * @result Each replayed log is the text of the player's output file.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testPlayerLog() throws IOException {
+        System.out.println("Testing replaying a player log from an event file.");
+        Path path = writeEventFile(new ArrayList<>());
+        try( GameEventFile file = GameEventFile.open(path) ) {
+            assertEquals("Incorrect number of players read", 2, file.getNumPlayers());
+            for(int player = 1; player <= 2; player++){
+                StringBuilder text = new StringBuilder();
+                file.writePlayerLog(player, text);
+                assertEquals("Replayed log was not the player's text", playerText(player, 100), text.toString());
+            }
+        }
+    }
+
+    /**
+     * Replay the timeline of every player of an event file.
+     * @result Events are in the order they were recorded, across players.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testTimeline() throws IOException {
+        System.out.println("Testing replaying the timeline of an event file.");
+        List<String> recorded = new ArrayList<>();
+        Path path = writeEventFile(recorded);
+        StringBuilder text = new StringBuilder();
+        try( GameEventFile file = GameEventFile.open(path) ) {
+            file.writeTimeline(text);
+        }
+        List<String> replayed = new ArrayList<>();
+        for( String line : text.toString().split(System.lineSeparator()) ) {
+            if( line.contains(" has drawn a ") ) {
+                //"Player N has drawn a T from bag X"
+                String[] words = line.split(" ");
+                replayed.add(words[1] + ":" + words[5]);
+            }
+        }
+        assertEquals("Timeline was not in the order events were recorded", recorded, replayed);
+    }
+
+    /**
+     * Replay an event file that was cut short before its index was written.
+     * @result The log is still replayed from every complete block.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testWithoutIndex() throws IOException {
+        System.out.println("Testing replaying an event file without its index.");
+        Path path = writeEventFile(new ArrayList<>());
+        try( GameEventFile file = GameEventFile.open(path) ) {
+            StringBuilder text = new StringBuilder();
+            file.writePlayerLog(1, text);
+            assertEquals("Replayed log was not the player's text", playerText(1, 100), text.toString());
+        }
+        //Cut the file after the first few complete blocks and half of the next one.
+        long blockBytes = GameEventFile.BLOCK_HEADER_BYTES + 4L * EventLog.FIELDS * Integer.BYTES;
+        try( FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE) ) {
+            channel.truncate(GameEventFile.HEADER_BYTES + 4 * blockBytes + blockBytes / 2);
+        }
+        try( GameEventFile file = GameEventFile.open(path) ) {
+            StringBuilder first = new StringBuilder();
+            StringBuilder second = new StringBuilder();
+            file.writePlayerLog(1, first);
+            file.writePlayerLog(2, second);
+            assertEquals("Complete blocks of player 1 were not replayed", playerText(1, 8), first.toString());
+            assertEquals("Complete blocks of player 2 were not replayed", playerText(2, 8), second.toString());
+        }
+    }
+}
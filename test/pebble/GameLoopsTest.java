@@ -0,0 +1,123 @@
+package pebble;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GameLoopsTest {
+    
+    GameLoops loops;
+    
+    /**
+     * Constructor for game loops test.
+     */
+    public GameLoopsTest() {
+    }
+    
+    /**
+     * Setup 3 loops.
+     */
+    @Before
+    public void newLoops() {
+        loops = new GameLoops(3, 4);
+    }
+    
+    @After
+    public void closeLoops() {
+        loops.close();
+    }
+    
+    /**
+     * Get the states of every player of a game.
+     * @param game The game.
+     * @return State of each player, in order of their number.
+     * @throws Exception
+     */
+    private List<PebbleGame.PlayerState> playerStates( PebbleGame game ) throws Exception {
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        List<PebbleGame.PlayerState> states = new ArrayList<>();
+        for( PebbleGame.Player player : (PebbleGame.Player[]) players.get(game) ) {
+            states.add(player.getState());
+        }
+        return states;
+    }
+    
+    /**
+     * Play 200 games of 8 players on 3 loops.
+     * @result Every game is won, each plays out exactly as it does alone, and every player ends done.
+     * @throws Exception
+     */
+    @Test(timeout = 60000)
+    public void testManyGames() throws Exception {
+        System.out.println("Testing playing many games on event loops.");
+        List<PebbleGame> games = new ArrayList<>();
+        List<CompletableFuture<GameResult>> results = new ArrayList<>();
+        for(int seed = 0; seed < 200; seed++){
+            games.add(TestGames.seededGame(8, seed));
+            results.add(loops.submit(games.get(seed), TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(30)));
+        }
+        List<PebbleGame.PlayerState> done = Collections.nCopies(8, PebbleGame.PlayerState.DONE);
+        for(int seed = 0; seed < 200; seed++){
+            GameResult result = results.get(seed).get();
+            PebbleGame alone = TestGames.seededGame(8, seed);
+            assertTrue("Every game should be won", alone.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(30)));
+            assertEquals("Game should have the same winner as alone", alone.getWinner(), result.getWinner());
+            assertEquals("Game should take the same turns as alone", alone.getTurnsPlayed(), result.getTotalTurns());
+            assertEquals("Every player should be done", done, playerStates(games.get(seed)));
+        }
+        assertEquals("No game should be left running", 0, loops.getActiveGames());
+    }
+    
+    /**
+     * Play a game that can never be won on a single loop, then many short games.
+     * @result The short games all finish while the long game is still being played,
+     * and cancelling the long game stops it.
+     * @throws Exception
+     */
+    @Test(timeout = 60000)
+    public void testFairness() throws Exception {
+        System.out.println("Testing fairness between games on an event loop.");
+        GameLoops single = new GameLoops(1, 1);
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(88, 11));
+        PebbleGame impossible = new PebbleGame(8, BagStorage.ARRAY, elevens, elevens, elevens);
+        try{
+            impossible.setLogVerbosity(LogVerbosity.off());
+            CompletableFuture<GameResult> longGame = single.submit(impossible, TurnOrder.ROUND_ROBIN, TimeUnit.SECONDS.toNanos(30));
+            List<CompletableFuture<GameResult>> shortGames = new ArrayList<>();
+            for(int seed = 0; seed < 20; seed++){
+                shortGames.add(single.submit(TestGames.seededGame(8, seed)));
+            }
+            for( CompletableFuture<GameResult> shortGame : shortGames ) {
+                assertTrue("Short games should be won", shortGame.get().isWon());
+            }
+            assertFalse("Long game should still be playing", longGame.isDone());
+            assertTrue("Long game should have played turns", impossible.getTurnsPlayed() > 0);
+            
+            assertTrue("Long game should be cancelled", longGame.cancel(false));
+        } finally {
+            single.close();
+        }
+        assertEquals("Cancelled game should stop", 0, single.getActiveGames());
+        assertEquals("Every player of the cancelled game should be done",
+                Collections.nCopies(8, PebbleGame.PlayerState.DONE), playerStates(impossible));
+    }
+    
+    /**
+     * @result Closed loops take no more games.
+     */
+    @Test(timeout = 10000, expected = RejectedExecutionException.class)
+    public void testClosed() {
+        System.out.println("Testing playing a game on closed event loops.");
+        loops.close();
+        loops.submit(TestGames.seededGame(8, 1));
+    }
+}
@@ -0,0 +1,92 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GamePoolTest {
+    
+    GamePool pool;
+    
+    /**
+     * Constructor for game pool test.
+     */
+    public GamePoolTest() {
+    }
+    
+    /**
+     * Setup a pool of games of 3 players, that any hand can win.
+     */
+    @Before
+    public void newPool() {
+        pool = new GamePool(3, BagStorage.ARRAY, TestGames.blackBagContents(3));
+    }
+    
+    /**
+     * @result A game given back is lent out again, rather than a new game being made.
+     */
+    @Test(timeout = 10000)
+    public void testReuse() {
+        System.out.println("Testing reusing pooled games.");
+        PebbleGame first = pool.acquire();
+        PebbleGame second = pool.acquire();
+        assertNotSame("Games in use should not be lent twice", first, second);
+        assertTrue("A player should win", first.playLockstep(TurnOrder.ROUND_ROBIN, TimeUnit.SECONDS.toNanos(5)));
+        pool.release(first);
+        assertEquals("Game given back should wait in the pool", 1, pool.idleGames());
+        PebbleGame again = pool.acquire();
+        assertSame("Game given back should be lent again", first, again);
+        assertEquals("Game lent again should be reset", 0, again.getTurnsPlayed());
+        assertTrue("Game lent again should be played again", again.playLockstep(TurnOrder.ROUND_ROBIN, TimeUnit.SECONDS.toNanos(5)));
+    }
+    
+    /**
+     * Borrow games from many threads at once, each playing a game then giving it back.
+     * @result Every game played has a winner, and only as many games are made as are played at once.
+     * @throws Exception
+     */
+    @Test(timeout = 30000)
+    public void testConcurrentUse() throws Exception {
+        System.out.println("Testing borrowing pooled games from many threads.");
+        Set<PebbleGame> made = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<Boolean>> results = new ArrayList<>();
+            for(int i = 0; i < 400; i++){
+                results.add(es.submit(() -> {
+                    PebbleGame game = pool.acquire();
+                    made.add(game);
+                    boolean won = game.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(5));
+                    pool.release(game);
+                    return won;
+                }));
+            }
+            for( Future<Boolean> result : results ) {
+                assertTrue("Every pooled game should be won", result.get());
+            }
+        } finally {
+            es.shutdownNow();
+        }
+        assertTrue("No more games should be made than threads", made.size() <= 4);
+        assertEquals("Every game should be given back", made.size(), pool.idleGames());
+    }
+    
+    /**
+     * @result Games that would change the pebble lists they are given cannot be pooled.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testListStorage() {
+        System.out.println("Testing pooling games that share their pebble lists.");
+        new GamePool(3, BagStorage.LIST, Arrays.asList(new ArrayList<>(Collections.nCopies(33, 10))));
+    }
+}
@@ -0,0 +1,94 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a finished game: who won, how many turns each player played,
+ * the hand each player ended with and how long the game took.
+ */
+public final class GameResult {
+    private final int winner;
+    private final int[] turns;
+    private final List<List<Integer>> hands;
+    private final long wallNanos;
+
+    /**
+     * @param winner Number of the winner, or 0 if the game was stopped without one.
+     * @param turns Turns played by each player, in order of their number.
+     * @param hands Final hand of each player, in order of their number.
+     * @param wallNanos Time from the game starting to every player stopping.
+     */
+    GameResult(int winner, int[] turns, List<List<Integer>> hands, long wallNanos){
+        this.winner = winner;
+        this.turns = turns;
+        List<List<Integer>> copies = new ArrayList<>(hands.size());
+        for( List<Integer> hand : hands ) {
+            copies.add(Collections.unmodifiableList(new ArrayList<>(hand)));
+        }
+        this.hands = Collections.unmodifiableList(copies);
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * @return Whether a player won, rather than the game being stopped.
+     */
+    public boolean isWon() {
+        return winner != 0;
+    }
+
+    /**
+     * @return Number of the player who won, starting from 1, or 0 if no player won.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return Number of players in the game.
+     */
+    public int getNumPlayers() {
+        return turns.length;
+    }
+
+    /**
+     * @param player Number of the player, starting from 1.
+     * @return Number of turns the player played.
+     */
+    public int getTurns( int player ) {
+        return turns[player - 1];
+    }
+
+    /**
+     * @return Number of turns played by all the players.
+     */
+    public long getTotalTurns() {
+        long total = 0;
+        for( int playerTurns : turns ) {
+            total += playerTurns;
+        }
+        return total;
+    }
+
+    /**
+     * @param player Number of the player, starting from 1.
+     * @return The pebbles the player ended the game with.
+     */
+    public List<Integer> getHand( int player ) {
+        return hands.get(player - 1);
+    }
+
+    /**
+     * @return Time from the game starting to every player stopping, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return isWon() ? PebbleGame.playerName(winner) + " won in " + getTurns(winner) + " turns"
+                       : "Stopped without a winner after " + getTotalTurns() + " turns";
+    }
+}
@@ -0,0 +1,151 @@
+package pebble;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays many games at once on one shared pool of worker threads, rather than a thread
+ * per player of every game.
+ *
+ * Each game is played one step at a time, a step being a player filling their hand or
+ * playing a single turn, and each task takes a few steps of one game before queueing
+ * the game again. Only one task of a game is ever queued, and the queue is first in first
+ * out, so every game gets a task in turn however long the other games are. As a game's
+ * steps are taken one after another, no player ever waits for another, and a seeded game
+ * plays out exactly as it would with playLockstep.
+ */
+public final class GameScheduler implements AutoCloseable {
+    private final ThreadPoolExecutor workers;
+    private final int stepsPerTask;
+    private final Object lock;
+    private int activeGames;
+    private boolean closed;
+
+    /**
+     * Make a scheduler with a worker per core, each task taking a single step.
+     */
+    public GameScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), 1);
+    }
+
+    /**
+     * @param numWorkers Number of worker threads shared by every game.
+     * @param stepsPerTask Number of steps of a game each task takes, more steps queue games less often.
+     */
+    public GameScheduler( int numWorkers, int stepsPerTask ) {
+        if( numWorkers < 1 || stepsPerTask < 1 ) {
+            throw new IllegalArgumentException("A scheduler needs at least one worker and one step per task.");
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread worker = new Thread(task, "Game scheduler worker " + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        this.stepsPerTask = stepsPerTask;
+        lock = new Object();
+    }
+
+    /**
+     * Schedule a game, with the players taking turns in order of their number and no time limit.
+     * @param game A game that has not been started.
+     * @return Result of the game, completed on a worker once every player has stopped.
+     */
+    public CompletableFuture<GameResult> submit( PebbleGame game ) {
+        return submit(game, TurnOrder.ROUND_ROBIN, Long.MAX_VALUE);
+    }
+
+    /**
+     * Schedule a game. Cancelling the returned future stops the game at its next step.
+     * Callbacks attached to the future run on the worker that finishes the game, so
+     * slow callbacks should use the async variants to leave the workers to the games.
+     * @param game A game that has not been started.
+     * @param order Order of the players' turns in each round.
+     * @param timeLimitNanos Time after which the game is stopped, including time spent queued.
+     * @return Result of the game, completed on a worker once every player has stopped.
+     * @throws RejectedExecutionException If the scheduler has been closed.
+     * @throws IllegalStateException If the game has already been started.
+     */
+    public CompletableFuture<GameResult> submit( PebbleGame game, TurnOrder order, long timeLimitNanos ) {
+        synchronized( lock ) {
+            if( closed ) {
+                throw new RejectedExecutionException("The scheduler has been closed.");
+            }
+            activeGames++;
+        }
+        ScheduledGame scheduled;
+        try{
+            scheduled = new ScheduledGame(new SteppedGame(game, order, timeLimitNanos));
+        } catch( RuntimeException e ) {
+            gameDone();
+            throw e;
+        }
+        workers.execute(scheduled);
+        return scheduled.game.getResult();
+    }
+
+    /**
+     * @return Number of games scheduled that have not finished.
+     */
+    public int getActiveGames() {
+        synchronized( lock ) {
+            return activeGames;
+        }
+    }
+
+    /**
+     * Stop taking new games, wait for every scheduled game to finish, then stop the workers.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        synchronized( lock ) {
+            closed = true;
+            while( activeGames > 0 ) {
+                try{
+                    lock.wait();
+                } catch( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+        }
+        workers.shutdown();
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Record that a game has finished, waking close if it was the last.
+     */
+    private void gameDone() {
+        synchronized( lock ) {
+            activeGames--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * A game in the queue, which takes a few of the game's steps each time it runs.
+     */
+    private class ScheduledGame implements Runnable {
+        private final SteppedGame game;
+
+        private ScheduledGame(SteppedGame game){
+            this.game = game;
+        }
+
+        @Override
+        public void run() {
+            if( game.step(stepsPerTask) ) {
+                workers.execute(this); //Go to the back of the queue, behind every other game.
+            } else {
+                gameDone(); //Only once the result is complete, so closing waits for it.
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GameSchedulerTest {
+    
+    GameScheduler scheduler;
+    
+    /**
+     * Constructor for game scheduler test.
+     */
+    public GameSchedulerTest() {
+    }
+    
+    /**
+     * Setup a scheduler with 2 workers.
+     */
+    @Before
+    public void newScheduler() {
+        scheduler = new GameScheduler(2, 1);
+    }
+    
+    @After
+    public void closeScheduler() {
+        scheduler.close();
+    }
+    
+    /**
+     * Schedule 200 games of 8 players on 2 workers.
+     * @result Every game is won, and each plays out exactly as it does on a single thread.
+     * @throws Exception
+     */
+    @Test(timeout = 60000)
+    public void testManyGames() throws Exception {
+        System.out.println("Testing scheduling many games on shared workers.");
+        List<CompletableFuture<GameResult>> results = new ArrayList<>();
+        for(int seed = 0; seed < 200; seed++){
+            results.add(scheduler.submit(TestGames.seededGame(8, seed), TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(30)));
+        }
+        for(int seed = 0; seed < 200; seed++){
+            GameResult result = results.get(seed).get();
+            PebbleGame alone = TestGames.seededGame(8, seed);
+            assertTrue("Every game should be won", alone.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(30)));
+            assertEquals("Game should have the same winner as on a single thread", alone.getWinner(), result.getWinner());
+            assertEquals("Game should take the same turns as on a single thread", alone.getTurnsPlayed(), result.getTotalTurns());
+        }
+        assertEquals("No game should be left running", 0, scheduler.getActiveGames());
+    }
+    
+    /**
+     * Schedule a game that can never be won on a single worker, then many short games.
+     * @result The short games all finish while the long game is still being played.
+     * @throws Exception
+     */
+    @Test(timeout = 60000)
+    public void testFairness() throws Exception {
+        System.out.println("Testing fairness between scheduled games.");
+        GameScheduler single = new GameScheduler(1, 1);
+        try{
+            List<Integer> elevens = new ArrayList<>(Collections.nCopies(88, 11));
+            PebbleGame impossible = new PebbleGame(8, BagStorage.ARRAY, elevens, elevens, elevens);
+            impossible.setLogVerbosity(LogVerbosity.off());
+            CompletableFuture<GameResult> longGame = single.submit(impossible, TurnOrder.ROUND_ROBIN, TimeUnit.SECONDS.toNanos(30));
+            List<CompletableFuture<GameResult>> shortGames = new ArrayList<>();
+            for(int seed = 0; seed < 20; seed++){
+                shortGames.add(single.submit(TestGames.seededGame(8, seed)));
+            }
+            for( CompletableFuture<GameResult> shortGame : shortGames ) {
+                assertTrue("Short games should be won", shortGame.get().isWon());
+            }
+            assertFalse("Long game should still be playing", longGame.isDone());
+            assertTrue("Long game should have played turns", impossible.getTurnsPlayed() > 0);
+            
+            assertTrue("Long game should be cancelled", longGame.cancel(false));
+        } finally {
+            single.close();
+        }
+        assertEquals("Cancelled game should stop", 0, single.getActiveGames());
+    }
+    
+    /**
+     * @result A closed scheduler takes no more games.
+     */
+    @Test(timeout = 10000, expected = RejectedExecutionException.class)
+    public void testClosed() {
+        System.out.println("Testing scheduling a game once closed.");
+        scheduler.close();
+        scheduler.submit(TestGames.seededGame(8, 1));
+    }
+}
@@ -5,6 +5,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.NoSuchElementException;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -95,6 +96,150 @@ public class GameUserInputTest {
         userInput.getNumPlayers();
     }
     
+    /**
+     * @result The game has 3 bag pairs unless another number above 0 is given.
+     */
+    @Test
+    public void testPairsOption() {
+        System.out.println("Testing the bag pairs command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("There should be 3 bag pairs by default", 3, optionInput.getNumBagPairs());
+        optionInput.setCommandLineOptions(new String[]{"--pairs=0"});
+        Assert.assertEquals("A game needs at least one bag pair", 3, optionInput.getNumBagPairs());
+        optionInput.setCommandLineOptions(new String[]{"--pairs=8"});
+        Assert.assertEquals("Pairs option was not used", 8, optionInput.getNumBagPairs());
+    }
+    
+    /**
+     * @result The log verbosity given on the command line is used, and logging
+     * everything is the default.
+     */
+    @Test
+    public void testLogVerbosityOption() {
+        System.out.println("Testing the log verbosity command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Everything should be logged by default", LogVerbosity.Level.FULL, optionInput.getLogVerbosity().getLevel());
+        optionInput.setCommandLineOptions(new String[]{"--log=sampled:10"});
+        Assert.assertEquals("Verbosity option was not used", "sampled:10", optionInput.getLogVerbosity().toString());
+    }
+    
+    /**
+     * @result The kind of player thread given on the command line is used, and
+     * platform threads are the default.
+     */
+    @Test
+    public void testPlayerThreadsOption() {
+        System.out.println("Testing the player threads command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Platform threads should be the default", PlayerThreads.PLATFORM, optionInput.getPlayerThreads());
+        optionInput.setCommandLineOptions(new String[]{"--threads=virtual"});
+        Assert.assertEquals("Threads option was not used", PlayerThreads.VIRTUAL, optionInput.getPlayerThreads());
+    }
+    
+    /**
+     * @result The engine and turn order given on the command line are used, and
+     * threads with round robin turns are the default.
+     */
+    @Test
+    public void testEngineOptions() {
+        System.out.println("Testing the engine and turn order command line options.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Threads should be the default engine", GameEngine.THREADS, optionInput.getEngine());
+        Assert.assertEquals("Round robin should be the default order", TurnOrder.ROUND_ROBIN, optionInput.getTurnOrder());
+        optionInput.setCommandLineOptions(new String[]{"--engine=lockstep", "--order=shuffled"});
+        Assert.assertEquals("Engine option was not used", GameEngine.LOCKSTEP, optionInput.getEngine());
+        Assert.assertEquals("Order option was not used", TurnOrder.SHUFFLED, optionInput.getTurnOrder());
+        Assert.assertEquals("Round robin should be read with a dash", TurnOrder.ROUND_ROBIN, TurnOrder.parse("round-robin"));
+    }
+    
+    /**
+     * @result The number of batch games given on the command line is used,
+     * and a number below 1 plays a single game.
+     */
+    @Test
+    public void testBatchOption() {
+        System.out.println("Testing the batch command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("A single game should be played by default", 0, optionInput.getBatchGames());
+        optionInput.setCommandLineOptions(new String[]{"--batch=0"});
+        Assert.assertEquals("A batch needs at least one game", 0, optionInput.getBatchGames());
+        optionInput.setCommandLineOptions(new String[]{"--batch=100000"});
+        Assert.assertEquals("Batch option was not used", 100000, optionInput.getBatchGames());
+    }
+    
+    /**
+     * @result Bags are kept whole unless a number of segments above 0 is given.
+     */
+    @Test
+    public void testSegmentsOption() {
+        System.out.println("Testing the segments command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Bags should be kept whole by default", 1, optionInput.getBagSegments());
+        optionInput.setCommandLineOptions(new String[]{"--segments=0"});
+        Assert.assertEquals("A bag needs at least one segment", 1, optionInput.getBagSegments());
+        optionInput.setCommandLineOptions(new String[]{"--segments=8"});
+        Assert.assertEquals("Segments option was not used", 8, optionInput.getBagSegments());
+    }
+    
+    /**
+     * @result Pebbles are kept in arrays unless another bag storage is given.
+     */
+    @Test
+    public void testStorageOption() {
+        System.out.println("Testing the storage command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Arrays should be the default storage", BagStorage.ARRAY, optionInput.getBagStorage());
+        optionInput.setCommandLineOptions(new String[]{"--storage=bucket"});
+        Assert.assertEquals("Unknown storage should use arrays", BagStorage.ARRAY, optionInput.getBagStorage());
+        optionInput.setCommandLineOptions(new String[]{"--storage=atomic"});
+        Assert.assertEquals("Storage option was not used", BagStorage.ATOMIC, optionInput.getBagStorage());
+    }
+    
+    /**
+     * @result Discards are added straight to the bags unless a number of stripes is given.
+     */
+    @Test
+    public void testStripesOption() {
+        System.out.println("Testing the stripes command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Discards should not be striped by default", 0, optionInput.getDepositStripes());
+        optionInput.setCommandLineOptions(new String[]{"--stripes=-1"});
+        Assert.assertEquals("Stripes cannot be negative", 0, optionInput.getDepositStripes());
+        optionInput.setCommandLineOptions(new String[]{"--stripes=16"});
+        Assert.assertEquals("Stripes option was not used", 16, optionInput.getDepositStripes());
+    }
+    
+    /**
+     * @result The timeout and stall window given on the command line are used,
+     * a timeout of 0 means no timeout, and a stall window must be above 0.
+     */
+    @Test
+    public void testWatchdogOptions() {
+        System.out.println("Testing the timeout and stall command line options.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertEquals("Timeout should be a minute by default", 60, optionInput.getTimeoutSeconds());
+        Assert.assertEquals("Stall window should be 10 seconds by default", 10, optionInput.getStallSeconds());
+        optionInput.setCommandLineOptions(new String[]{"--timeout=0", "--stall=0"});
+        Assert.assertEquals("Timeout of 0 should be allowed", 0, optionInput.getTimeoutSeconds());
+        Assert.assertEquals("Stall window of 0 should not be allowed", 10, optionInput.getStallSeconds());
+        optionInput.setCommandLineOptions(new String[]{"--timeout=3600", "--stall=2"});
+        Assert.assertEquals("Timeout option was not used", 3600, optionInput.getTimeoutSeconds());
+        Assert.assertEquals("Stall option was not used", 2, optionInput.getStallSeconds());
+    }
+    
+    /**
+     * @result The seed given on the command line is used, and games are not
+     * seeded by default.
+     */
+    @Test
+    public void testSeedOption() {
+        System.out.println("Testing the seed command line option.");
+        GameUserInput optionInput = new GameUserInput();
+        Assert.assertNull("Games should not be seeded by default", optionInput.getSeed());
+        optionInput.setCommandLineOptions(new String[]{"--seed=-12345"});
+        Assert.assertEquals("Seed option was not used", Long.valueOf(-12345), optionInput.getSeed());
+    }
+    
     /**
      * @result Expected to throw NoSuchElementException, proving that the error was handled
      * correctly, and the program asked the user for another valid file.
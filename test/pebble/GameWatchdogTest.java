@@ -0,0 +1,107 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GameWatchdogTest {
+    
+    ExecutorService es;
+    
+    /**
+     * Constructor for game watchdog test.
+     */
+    public GameWatchdogTest() {
+    }
+    
+    /**
+     * Stop any players still running.
+     * @throws InterruptedException
+     */
+    @After
+    public void stopPlayers() throws InterruptedException {
+        if( es != null ) {
+            es.shutdownNow();
+            assertTrue("Players should stop once interrupted", es.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+    
+    /**
+     * Make a game of 3 players, with every pebble of the same weight.
+     * @param weight Weight of every pebble.
+     * @return The game.
+     */
+    private PebbleGame newGame( int weight ) {
+        List<Integer> pebbles = new ArrayList<>(Collections.nCopies(33, weight));
+        PebbleGame game = new PebbleGame(3, BagStorage.ARRAY, pebbles, new ArrayList<>(pebbles), new ArrayList<>(pebbles));
+        game.setLogVerbosity(LogVerbosity.off());
+        return game;
+    }
+    
+    /**
+     * Watch a game that any hand wins.
+     * @result The game finishes by itself.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 10000)
+    public void testFinished() throws InterruptedException {
+        System.out.println("Testing watching a game that finishes.");
+        PebbleGame game = newGame(10);
+        es = Executors.newFixedThreadPool(3);
+        game.start(es);
+        es.shutdown();
+        assertEquals("Game should finish", GameWatchdog.Outcome.FINISHED,
+                new GameWatchdog(game, Long.MAX_VALUE, TimeUnit.SECONDS.toNanos(5)).watch(es));
+    }
+    
+    /**
+     * Watch an impossible game that keeps playing, with a short deadline.
+     * @result The game is stopped at its deadline, although it is making progress.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 10000)
+    public void testTimedOut() throws InterruptedException {
+        System.out.println("Testing watching a game past its deadline.");
+        PebbleGame game = newGame(11);
+        es = Executors.newFixedThreadPool(3);
+        game.start(es);
+        es.shutdown();
+        long start = System.nanoTime();
+        assertEquals("Game should time out", GameWatchdog.Outcome.TIMED_OUT,
+                new GameWatchdog(game, TimeUnit.MILLISECONDS.toNanos(300), TimeUnit.MILLISECONDS.toNanos(100)).watch(es));
+        assertTrue("Game should run until its deadline", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+        assertTrue("Game should have been making progress", game.getTurnsPlayed() > 0);
+    }
+    
+    /**
+     * Watch a game whose players cannot all run at once, so the first waits forever
+     * for the others to fill their hands.
+     * @result The game is stopped as soon as it stalls, long before its deadline,
+     * and where each player was is described.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 10000)
+    public void testStalled() throws InterruptedException {
+        System.out.println("Testing watching a game that stalls.");
+        PebbleGame game = newGame(11);
+        es = Executors.newFixedThreadPool(1);
+        game.start(es);
+        es.shutdown();
+        long start = System.nanoTime();
+        assertEquals("Game should stall", GameWatchdog.Outcome.STALLED,
+                new GameWatchdog(game, TimeUnit.MINUTES.toNanos(1), TimeUnit.MILLISECONDS.toNanos(200)).watch(es));
+        assertTrue("Game should be stopped well before its deadline", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        
+        String[] players = game.describePlayers().split(System.lineSeparator());
+        assertEquals("Every player should be described", 3, players.length);
+        assertTrue("Player 1 should have filled their hand and be waiting: " + players[0],
+                players[0].matches("Player 1: 0 turns, hand value 110, last drew from bag [XYZ], waiting for the other players"));
+        assertEquals("Player 2 should not have started", "Player 2: 0 turns, hand value 0, no bag yet", players[1]);
+    }
+}
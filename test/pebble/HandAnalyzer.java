@@ -0,0 +1,56 @@
+package pebble;
+
+import java.util.List;
+
+/**
+ * Decides before a game starts whether any player could ever win it.
+ *
+ * Pebbles move between every bag as they are discarded and refilled, so a winning hand
+ * can be made of any 10 pebbles from all of the black bags. For each hand size the sums
+ * that can be made are kept as a bitset, and each pebble shifts the sets of one size into
+ * the next. Only 10 pebbles of any one weight fit in a hand, and pebbles heavier than a
+ * winning hand never fit in one, so the work depends on the weights rather than on the
+ * number of pebbles.
+ */
+final class HandAnalyzer {
+    static final int HAND_SIZE = 10;
+    static final int WINNING_VALUE = 100;
+
+    private HandAnalyzer() {
+    }
+
+    /**
+     * Decide whether some hand of 10 pebbles from the bags weighs exactly 100.
+     * @param blackBagContents Pebbles of each black bag.
+     * @return Whether a winning hand exists, if not no player can ever win.
+     */
+    static boolean winningHandExists( List<List<Integer>> blackBagContents ) {
+        //Count each usable weight, up to the number that fit in a hand.
+        int[] counts = new int[WINNING_VALUE + 1];
+        for( List<Integer> bag : blackBagContents ) {
+            for( int pebble : bag ) {
+                if( pebble <= WINNING_VALUE && counts[pebble] < HAND_SIZE ) {
+                    counts[pebble]++;
+                }
+            }
+        }
+        //Bit s of sums[k] is set when k pebbles can weigh s, with sums 0 to 127 held in two words.
+        long[] low = new long[HAND_SIZE + 1];
+        long[] high = new long[HAND_SIZE + 1];
+        low[0] = 1;
+        for(int weight = 1; weight <= WINNING_VALUE; weight++){
+            for(int copy = 0; copy < counts[weight]; copy++){
+                //Go from the largest hand down, so each copy is only added to a hand once.
+                for(int size = HAND_SIZE; size > 0; size--){
+                    if( weight < Long.SIZE ) {
+                        high[size] |= high[size - 1] << weight | low[size - 1] >>> (Long.SIZE - weight);
+                        low[size] |= low[size - 1] << weight;
+                    } else {
+                        high[size] |= low[size - 1] << (weight - Long.SIZE);
+                    }
+                }
+            }
+        }
+        return (high[HAND_SIZE] >>> (WINNING_VALUE - Long.SIZE) & 1) != 0;
+    }
+}
@@ -0,0 +1,75 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HandAnalyzerTest {
+    
+    /**
+     * Constructor for hand analyzer test.
+     */
+    public HandAnalyzerTest() {
+    }
+    
+    /**
+     * Make a bag of pebbles.
+     * @param weight Weight of every pebble.
+     * @param count Number of pebbles.
+     * @return Pebbles of the bag.
+     */
+    private List<Integer> pebbles( int weight, int count ) {
+        return new ArrayList<>(Collections.nCopies(count, weight));
+    }
+    
+    /**
+     * @result A winning hand is found, only when there are enough pebbles across the bags to make it.
+     */
+    @Test
+    public void testWinningHand() {
+        System.out.println("Testing finding a winning hand.");
+        assertTrue("Ten 10s should win", HandAnalyzer.winningHandExists(Arrays.asList(pebbles(10, 10))));
+        assertTrue("Pebbles of every bag should be used",
+                HandAnalyzer.winningHandExists(Arrays.asList(pebbles(10, 5), pebbles(10, 5), pebbles(11, 20))));
+        List<Integer> mixed = pebbles(1, 9);
+        mixed.add(91);
+        assertTrue("A 91 and nine 1s should win", HandAnalyzer.winningHandExists(Arrays.asList(mixed)));
+    }
+    
+    /**
+     * @result No winning hand is found for games that can never be won.
+     */
+    @Test
+    public void testImpossible() {
+        System.out.println("Testing finding no winning hand.");
+        assertFalse("Every pebble weighing 11 should be impossible",
+                HandAnalyzer.winningHandExists(Arrays.asList(pebbles(11, 33), pebbles(11, 33), pebbles(11, 33))));
+        //Nine 10s and a 11 make 101, and each 10 swapped for a 11 only adds to it.
+        assertFalse("Only nine 10s should be impossible",
+                HandAnalyzer.winningHandExists(Arrays.asList(pebbles(10, 9), pebbles(11, 100))));
+        //The hand must hold exactly 10 pebbles, so a single 100 is not enough.
+        List<Integer> heavy = pebbles(1, 20);
+        heavy.add(100);
+        heavy.add(500);
+        assertFalse("A 100 with other pebbles should be impossible", HandAnalyzer.winningHandExists(Arrays.asList(heavy)));
+    }
+    
+    /**
+     * @result Many pebbles of many weights are analysed in well under a second.
+     */
+    @Test(timeout = 1000)
+    public void testManyPebbles() {
+        System.out.println("Testing finding a winning hand among many pebbles.");
+        List<Integer> bag = new ArrayList<>();
+        for(int i = 0; i < 1000000; i++){
+            bag.add(11 + i % 1000);
+        }
+        assertFalse("Pebbles of 11 and over should be impossible", HandAnalyzer.winningHandExists(Arrays.asList(bag)));
+        bag.set(0, 1);
+        bag.set(1, 1);
+        assertTrue("Two 1s should make a winning hand with heavier pebbles", HandAnalyzer.winningHandExists(Arrays.asList(bag)));
+    }
+}
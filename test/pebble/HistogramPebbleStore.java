@@ -0,0 +1,307 @@
+package pebble;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Pebble store that only keeps a count for each distinct weight, for bags with
+ * many pebbles but few different weights.
+ *
+ * The pebbles are indexed in ascending order of weight, and the counts are kept
+ * in a Fenwick tree so finding, taking or adding a pebble of a known weight takes
+ * logarithmic time in the number of distinct weights.
+ *
+ * Adding a pebble of a weight the store has never held inserts the weight into
+ * the sorted arrays and rebuilds the tree, which takes linear time in the number
+ * of distinct weights. As clearing keeps the known weights, this is only paid the
+ * first time each weight is seen, and adding all of another histogram merges its
+ * new weights in a single pass rather than one at a time.
+ */
+class HistogramPebbleStore implements PebbleStore {
+    private int[] weights;  //Distinct weights, sorted ascending.
+    private int[] counts;   //Number of pebbles of each weight.
+    private int[] tree;     //Fenwick tree over counts, indexed from 1.
+    private int size;
+    private final List<Integer> view;
+
+    /**
+     * Constructs an empty store.
+     */
+    HistogramPebbleStore(){
+        weights = new int[0];
+        counts = new int[0];
+        tree = new int[1];
+        view = new View();
+    }
+
+    /**
+     * Constructs a store counting the given pebbles.
+     * @param pebbles Pebbles to count into the store.
+     */
+    HistogramPebbleStore(List<Integer> pebbles){
+        this();
+        int[] sorted = new int[pebbles.size()];
+        for(int i = 0; i < sorted.length; i++){
+            sorted[i] = pebbles.get(i);
+        }
+        Arrays.sort(sorted);
+
+        //Collapse the sorted pebbles into their distinct weights and counts.
+        int distinct = 0;
+        for(int i = 0; i < sorted.length; i++){
+            if( i == 0 || sorted[i] != sorted[i - 1] ) {
+                distinct++;
+            }
+        }
+        weights = new int[distinct];
+        counts = new int[distinct];
+        int slot = -1;
+        for(int i = 0; i < sorted.length; i++){
+            if( i == 0 || sorted[i] != sorted[i - 1] ) {
+                weights[++slot] = sorted[i];
+            }
+            counts[slot]++;
+        }
+        size = sorted.length;
+        buildTree();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get( int index ) {
+        return weights[find(index)];
+    }
+
+    @Override
+    public void add( int pebble ) {
+        add(pebble, 1);
+    }
+
+    /**
+     * Add a number of pebbles of the same weight to the store.
+     * @param pebble Weight of the pebbles to add.
+     * @param count Number of pebbles to add.
+     */
+    void add( int pebble, int count ) {
+        int slot = Arrays.binarySearch(weights, pebble);
+        if( slot < 0 ) {
+            slot = insertWeight(-slot - 1, pebble);
+        }
+        counts[slot] += count;
+        update(slot, count);
+        size += count;
+    }
+
+    /**
+     * The pebbles are kept sorted by weight, so taking a pebble never
+     * changes the order of the others.
+     */
+    @Override
+    public void remove( int index ) {
+        take(index);
+    }
+
+    @Override
+    public int take( int index ) {
+        int slot = find(index);
+        counts[slot]--;
+        update(slot, -1);
+        size--;
+        return weights[slot];
+    }
+
+    @Override
+    public void addAll( PebbleStore other ) {
+        if( !(other instanceof HistogramPebbleStore) ) {
+            PebbleStore.super.addAll(other);
+            return;
+        }
+        HistogramPebbleStore source = (HistogramPebbleStore) other;
+        //Count the weights held by the source that are not known yet.
+        int missing = 0;
+        int known = 0;
+        for(int i = 0; i < source.weights.length; i++){
+            while( known < weights.length && weights[known] < source.weights[i] ) {
+                known++;
+            }
+            if( source.counts[i] > 0 && (known == weights.length || weights[known] != source.weights[i]) ) {
+                missing++;
+            }
+        }
+        if( missing == 0 ) {
+            known = 0;
+            for(int i = 0; i < source.weights.length; i++){
+                if( source.counts[i] > 0 ) {
+                    while( weights[known] != source.weights[i] ) {
+                        known++;
+                    }
+                    counts[known] += source.counts[i];
+                }
+            }
+        } else {
+            merge(source, missing);
+        }
+        size += source.size;
+        buildTree();
+    }
+
+    /**
+     * Empties the counts but keeps the known weights, as the same weights
+     * are likely to be added back.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(tree, 0);
+        size = 0;
+    }
+
+    @Override
+    public List<Integer> view() {
+        return view;
+    }
+
+    /**
+     * Find the slot of the weight holding the pebble at an index.
+     * @param index Index of the pebble, in ascending order of weight.
+     * @return Slot of the pebble's weight.
+     */
+    private int find( int index ) {
+        if( index < 0 || index >= size ) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        //Walk down the tree for the last position whose prefix count is at most index.
+        int position = 0;
+        int remaining = index;
+        for(int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1){
+            int next = position + step;
+            if( next <= weights.length && tree[next] <= remaining ) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;    //Tree positions are one above slots.
+    }
+
+    /**
+     * Change the count at a slot in the Fenwick tree.
+     * @param slot Slot of the weight.
+     * @param delta Amount to change the count by.
+     */
+    private void update( int slot, int delta ) {
+        for(int i = slot + 1; i < tree.length; i += i & -i){
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Rebuild the Fenwick tree from the counts, in linear time.
+     */
+    private void buildTree() {
+        if( tree.length == weights.length + 1 ) {
+            Arrays.fill(tree, 0);
+        } else {
+            tree = new int[weights.length + 1];
+        }
+        for(int i = 1; i < tree.length; i++){
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if( parent < tree.length ) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Merge the counts of another store into this one, with the weights of both
+     * kept sorted, leaving the tree to be rebuilt.
+     * @param source Store to add the counts of.
+     * @param missing Number of weights held by the source that this store does not know.
+     */
+    private void merge( HistogramPebbleStore source, int missing ) {
+        int[] newWeights = new int[weights.length + missing];
+        int[] newCounts = new int[newWeights.length];
+        int i = 0;
+        int j = 0;
+        int slot = 0;
+        while( i < weights.length || j < source.weights.length ) {
+            if( j == source.weights.length || (i < weights.length && weights[i] < source.weights[j]) ) {
+                newWeights[slot] = weights[i];
+                newCounts[slot++] = counts[i++];
+            } else if( i < weights.length && weights[i] == source.weights[j] ) {
+                newWeights[slot] = weights[i];
+                newCounts[slot++] = counts[i++] + source.counts[j++];
+            } else if( source.counts[j] > 0 ) {
+                newWeights[slot] = source.weights[j];
+                newCounts[slot++] = source.counts[j++];
+            } else {
+                j++;    //Weights the source knows but holds none of are not worth adding.
+            }
+        }
+        weights = newWeights;
+        counts = newCounts;
+    }
+
+    /**
+     * Add a new weight with no pebbles, keeping the weights sorted.
+     * Takes linear time in the number of distinct weights.
+     * @param slot Slot the weight belongs at.
+     * @param weight Weight to add.
+     * @return Slot of the new weight.
+     */
+    private int insertWeight( int slot, int weight ) {
+        int[] newWeights = new int[weights.length + 1];
+        int[] newCounts = new int[counts.length + 1];
+        System.arraycopy(weights, 0, newWeights, 0, slot);
+        System.arraycopy(counts, 0, newCounts, 0, slot);
+        System.arraycopy(weights, slot, newWeights, slot + 1, weights.length - slot);
+        System.arraycopy(counts, slot, newCounts, slot + 1, counts.length - slot);
+        newWeights[slot] = weight;
+        weights = newWeights;
+        counts = newCounts;
+        buildTree();
+        return slot;
+    }
+
+    /**
+     * Boxed list adapter over the counts, for callers that still use getPebbles().
+     * Pebbles always appear in ascending order of weight, so a pebble added
+     * through the view is placed by its weight rather than at the index given.
+     */
+    private class View extends AbstractList<Integer> implements RandomAccess {
+
+        @Override
+        public Integer get( int index ) {
+            return HistogramPebbleStore.this.get(index);
+        }
+
+        @Override
+        public void add( int index, Integer pebble ) {
+            HistogramPebbleStore.this.add(pebble);
+            modCount++;
+        }
+
+        @Override
+        public Integer remove( int index ) {
+            modCount++;
+            return take(index);
+        }
+
+        @Override
+        public void clear() {
+            HistogramPebbleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+
+public class HistogramPebbleStoreTest {
+
+    HistogramPebbleStore testStore;
+
+    /**
+     * Constructor for histogram pebble store test.
+     */
+    public HistogramPebbleStoreTest() {
+    }
+
+    /**
+     * Instantiate a new store for each test, holding the pebbles [5,1,5,3,5].
+     */
+    @Before
+    public void newStore(){
+        testStore = new HistogramPebbleStore(Arrays.asList(5,1,5,3,5));
+    }
+
+    /**
+     * Test that pebbles are indexed in ascending order of weight.
+     */
+    @Test
+    public void testGet() {
+        System.out.println("Testing get histogram store method.");
+        assertEquals("Pebbles should be sorted by weight", testStore.view(), Arrays.asList(1,3,5,5,5));
+        assertEquals("Incorrect size returned", testStore.size(), 5);
+    }
+
+    /**
+     * Test take method, of class HistogramPebbleStore.
+     */
+    @Test
+    public void testTake() {
+        System.out.println("Testing take histogram store method.");
+        assertEquals("Taken pebble was not the one at the index", testStore.take(3), 5);
+        assertEquals("Taken pebble was not the one at the index", testStore.take(0), 1);
+        assertEquals("Pebbles were not taken correctly", testStore.view(), Arrays.asList(3,5,5));
+    }
+
+    /**
+     * Test add method, of class HistogramPebbleStore, with new and known weights.
+     */
+    @Test
+    public void testAdd() {
+        System.out.println("Testing add histogram store method.");
+        testStore.add(4);
+        testStore.add(1);
+        testStore.add(9);
+        assertEquals("Pebbles were added incorrectly", testStore.view(), Arrays.asList(1,1,3,4,5,5,5,9));
+    }
+
+    /**
+     * Test addAll and clear methods, of class HistogramPebbleStore.
+     */
+    @Test
+    public void testAddAllAndClear() {
+        System.out.println("Testing addAll and clear histogram store methods.");
+        HistogramPebbleStore other = new HistogramPebbleStore(Arrays.asList(2,5));
+        testStore.addAll(other);
+        assertEquals("Pebbles were added incorrectly", testStore.view(), Arrays.asList(1,2,3,5,5,5,5));
+        testStore.clear();
+        assertEquals("Store was not cleared", testStore.size(), 0);
+        testStore.add(3);
+        assertEquals("Store was not reusable after clearing", testStore.view(), Arrays.asList(3));
+        testStore.addAll(new HistogramPebbleStore(Arrays.asList(3,9,1,9)));
+        assertEquals("Known and new weights were not merged", testStore.view(), Arrays.asList(1,3,3,9,9));
+        testStore.take(0);
+        testStore.addAll(new HistogramPebbleStore(Arrays.asList(1,9)));
+        assertEquals("Known weights were not added", testStore.view(), Arrays.asList(1,3,3,9,9,9));
+    }
+
+    /**
+     * Take every pebble of a large store at random indexes.
+     * @result Every pebble is taken out exactly once.
+     */
+    @Test
+    public void testTakeAll() {
+        System.out.println("Testing taking every pebble from a histogram store.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 5000; i++){
+            pebbles.add(i * 7 % 301 + 1);
+        }
+        HistogramPebbleStore store = new HistogramPebbleStore(pebbles);
+        List<Integer> taken = new ArrayList<>();
+        while( store.size() > 0 ) {
+            taken.add(store.take((taken.size() * 31) % store.size()));
+        }
+        Collections.sort(pebbles);
+        Collections.sort(taken);
+        assertEquals("Pebbles got lost or added", taken, pebbles);
+    }
+}
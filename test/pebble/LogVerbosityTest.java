@@ -0,0 +1,48 @@
+package pebble;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LogVerbosityTest {
+    
+    /**
+     * Constructor for log verbosity test.
+     */
+    public LogVerbosityTest() {
+    }
+    
+    /**
+     * Test parse method, of class LogVerbosity.
+     */
+    @Test
+    public void testParse() {
+        System.out.println("Testing parse log verbosity method.");
+        assertEquals("Verbosity was parsed incorrectly", LogVerbosity.Level.OFF, LogVerbosity.parse("off").getLevel());
+        assertEquals("Verbosity was parsed incorrectly", LogVerbosity.Level.SUMMARY, LogVerbosity.parse(" Summary ").getLevel());
+        assertEquals("Verbosity was parsed incorrectly", LogVerbosity.Level.FULL, LogVerbosity.parse("full").getLevel());
+        assertEquals("Verbosity was parsed incorrectly", "sampled:25", LogVerbosity.parse("sampled:25").toString());
+    }
+    
+    /**
+     * Test parse method, of class LogVerbosity, with text that is not a verbosity.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() {
+        System.out.println("Testing parse log verbosity method with an invalid verbosity.");
+        LogVerbosity.parse("sampled:0");
+    }
+    
+    /**
+     * Test logsTurn method, of class LogVerbosity.
+     */
+    @Test
+    public void testLogsTurn() {
+        System.out.println("Testing logsTurn log verbosity method.");
+        LogVerbosity sampled = LogVerbosity.sampled(3);
+        assertTrue("Initial hand should be logged when sampling", sampled.logsTurn(0));
+        assertFalse("Turn between samples should not be logged", sampled.logsTurn(2));
+        assertTrue("Every third turn should be logged", sampled.logsTurn(6));
+        assertFalse("No turn should be logged in a summary", LogVerbosity.summary().logsTurn(0));
+        assertFalse("Setup should not be logged when off", LogVerbosity.off().logsSetup());
+    }
+}
@@ -13,9 +13,19 @@ import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
 
 public class PebbleGameTest { 
     
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
     static PebbleGame game;
     
     static WhiteBag whiteBagA;
@@ -44,28 +54,22 @@ public class PebbleGameTest {
               
         Class gameClass = PebbleGame.class;
                     
-        Field bagA = gameClass.getDeclaredField("whiteBagA");
-        Field bagB = gameClass.getDeclaredField("whiteBagB");
-        Field bagC = gameClass.getDeclaredField("whiteBagC");
-        Field bagX = gameClass.getDeclaredField("blackBagX");
-        Field bagY = gameClass.getDeclaredField("blackBagY");
-        Field bagZ = gameClass.getDeclaredField("blackBagZ");
+        Field whiteBags = gameClass.getDeclaredField("whiteBags");
+        Field blackBags = gameClass.getDeclaredField("blackBags");
         Field players = gameClass.getDeclaredField("allPlayers");
 
-        bagA.setAccessible(true);
-        bagB.setAccessible(true);
-        bagC.setAccessible(true);
-        bagX.setAccessible(true);
-        bagY.setAccessible(true);
-        bagZ.setAccessible(true);
+        whiteBags.setAccessible(true);
+        blackBags.setAccessible(true);
         players.setAccessible(true);
         
-        whiteBagA = (WhiteBag) bagA.get(game);
-        whiteBagB = (WhiteBag) bagB.get(game);
-        whiteBagC = (WhiteBag) bagC.get(game);
-        blackBagX = (BlackBag) bagX.get(game);
-        blackBagY = (BlackBag) bagY.get(game);
-        blackBagZ = (BlackBag) bagZ.get(game);
+        WhiteBag[] gameWhiteBags = (WhiteBag[]) whiteBags.get(game);
+        BlackBag[] gameBlackBags = (BlackBag[]) blackBags.get(game);
+        whiteBagA = gameWhiteBags[0];
+        whiteBagB = gameWhiteBags[1];
+        whiteBagC = gameWhiteBags[2];
+        blackBagX = gameBlackBags[0];
+        blackBagY = gameBlackBags[1];
+        blackBagZ = gameBlackBags[2];
         allPlayers = (PebbleGame.Player[]) players.get(game);
     }
    
@@ -87,6 +91,7 @@ public class PebbleGameTest {
     * @throws IllegalAccessException
     */
     public void resetGame() throws NoSuchFieldException, IllegalAccessException {
+        game.reset(); //Forget any win claimed by an earlier test.
         blackBagX.getPebbles().clear();
         blackBagY.getPebbles().clear();
         blackBagZ.getPebbles().clear();
@@ -196,6 +201,49 @@ public class PebbleGameTest {
         Assert.assertTrue("Player's hand was incorrect after draw", player.getHandValue() == 10);
     } 
     
+    /**
+    * Test that the draw() method only draws from bags with pebbles.
+    * @result The pebble is always drawn from the one bag with pebbles.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test
+    public void testDrawSkipsEmptyBags() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing draw player method with empty bags.");
+        resetGame();
+        blackBagX.getPebbles().clear();
+        blackBagY.getPebbles().clear();
+        
+        for(int i = 0; i < 5; i++){
+            player.draw();
+        }
+        
+        Assert.assertTrue("Pebbles should only be drawn from bag Z", blackBagZ.size() == 5);
+        Assert.assertTrue("Next deposit bag should be the pair of bag Z", getPlayerNextDepositBag() == whiteBagC);
+        Assert.assertTrue("Player's hand was incorrect after draws", player.getHandValue() == 50);
+    }
+    
+    /**
+    * Test that the draw() method waits rather than failing when every bag is empty.
+    * @result The interrupted player leaves the draw without a pebble.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 5000)
+    public void testDrawAllBagsEmpty() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing draw player method with every bag empty.");
+        resetGame();
+        blackBagX.getPebbles().clear();
+        blackBagY.getPebbles().clear();
+        blackBagZ.getPebbles().clear();
+        
+        Thread.currentThread().interrupt();
+        player.draw();
+        
+        Assert.assertTrue("Player should still be interrupted", Thread.interrupted());
+        Assert.assertTrue("Player should not have drawn a pebble", getPlayerHand(player).isEmpty());
+    }
+    
     /**
     * Test that the refill() method works for a player. Invoked by calling
     *   draw() on a bag with 1 pebble and having a white bag with some pebbles in.
@@ -307,7 +355,69 @@ public class PebbleGameTest {
         Field winner = winnerClass.getDeclaredField("winner");
         winner.setAccessible(true);
         
-        Assert.assertTrue("Winning player should be this player", winner.get(winnerObject) == player);
+        Assert.assertTrue("Winning player should be this player", ((AtomicReference) winner.get(winnerObject)).get() == player);
+    }
+    
+    /**
+    * Test that with logging off only the end of game summary is logged.
+    * @result The log of a player who fills a winning hand only holds their win.
+    */
+    @Test
+    public void testLogOff() {
+        System.out.println("Testing a player log with logging off.");
+        List<Integer> tens = Arrays.asList(10,10,10,10,10,10,10,10,10,10,10);
+        PebbleGame quietGame = new PebbleGame(1, BagStorage.ARRAY, tens, tens, tens);
+        quietGame.setLogVerbosity(LogVerbosity.off());
+        PebbleGame.Player quietPlayer = quietGame.new Player(1);
+        
+        quietPlayer.fillHand();
+        
+        List<String> log = new ArrayList<>();
+        quietPlayer.getGameLog().forEach(log::add);
+        Assert.assertEquals("Only the win should be logged", Arrays.asList(
+                "\r\nPlayer 1 GOT A WINNING HAND FIRST WITH:\r\n[10, 10, 10, 10, 10, 10, 10, 10, 10, 10]\r\nUsing: 0 turns\r\n"), log);
+    }
+    
+    /**
+    * Test that a sampled log shows the right hand after turns were left out.
+    * @result The last logged hand is the hand the player held after the last sampled turn.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test
+    public void testLogSampled() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing a sampled player log.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 1; i <= 60; i++){
+            pebbles.add(i);
+        }
+        PebbleGame sampledGame = new PebbleGame(1, BagStorage.ARRAY, pebbles, pebbles, pebbles);
+        sampledGame.setLogVerbosity(LogVerbosity.sampled(2));
+        PebbleGame.Player sampledPlayer = sampledGame.new Player(1);
+        Field turnCounter = PebbleGame.Player.class.getDeclaredField("turnCounter");
+        turnCounter.setAccessible(true);
+        
+        sampledPlayer.fillHand();
+        String sampledHand = null;
+        for(int turn = 1; turn <= 5; turn++){
+            turnCounter.set(sampledPlayer, turn);
+            sampledPlayer.discard();
+            sampledPlayer.draw();
+            if( turn == 4 ) {
+                sampledHand = getPlayerHand(sampledPlayer).toString();
+            }
+        }
+        
+        String lastLoggedHand = null;
+        int numDraws = 0;
+        for( String entry : sampledPlayer.getGameLog() ) {
+            if( entry.contains("has drawn a") ) {
+                numDraws++;
+                lastLoggedHand = entry.substring(entry.indexOf('['), entry.indexOf(']') + 1);
+            }
+        }
+        Assert.assertEquals("Only the initial hand and turns 2 and 4 should be logged", 12, numDraws);
+        Assert.assertEquals("Last logged hand should be the hand after turn 4", sampledHand, lastLoggedHand);
     }
     
     /**
@@ -339,7 +449,789 @@ public class PebbleGameTest {
         
         if(!es.isTerminated()){
             es.shutdownNow();
+            //Wait for the players to stop, so they do not play on in the bags of later tests.
+            try{
+                Assert.assertTrue("Interrupted players should stop", es.awaitTermination(10, TimeUnit.SECONDS));
+            } catch( InterruptedException e ) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+    * Test that a game can be made with more than three bag pairs.
+    * @result Every black bag is paired with its own white bag, the first three
+    * keep their usual names, and random bag choices can reach every black bag.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test
+    public void testManyBagPairs() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing a game with many bag pairs.");
+        List<List<Integer>> contents = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            contents.add(new ArrayList<>(Arrays.asList(10,10,10,10,10,10,10,10,10,10,10)));
+        }
+        PebbleGame manyBagGame = new PebbleGame(1, BagStorage.ARRAY, contents);
+        
+        Field blackBags = PebbleGame.class.getDeclaredField("blackBags");
+        blackBags.setAccessible(true);
+        BlackBag[] gameBlackBags = (BlackBag[]) blackBags.get(manyBagGame);
+        
+        Assert.assertTrue("There should be 8 black bags", gameBlackBags.length == 8);
+        Assert.assertEquals("First bag pair should keep its name", "X", gameBlackBags[0].getName());
+        Assert.assertEquals("First bag pair should keep its name", "A", gameBlackBags[0].getPair().getName());
+        Assert.assertEquals("Later bag pairs should be numbered", "X8", gameBlackBags[7].getName());
+        
+        PebbleGame.Player manyBagPlayer = manyBagGame.new Player(1);
+        List<BlackBag> chosen = new ArrayList<>();
+        for(int i = 0; i < 1000; i++){
+            BlackBag bag = manyBagPlayer.chooseRandomBag();
+            if( !chosen.contains(bag) ) {
+                chosen.add(bag);
+            }
+        }
+        Assert.assertTrue("Every black bag should be chosen", chosen.size() == 8);
+    }
+    
+    /**
+    * Run a game with many players, each on a virtual thread.
+    * @result Every player finishes, and exactly one player wins.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    * @throws InterruptedException
+    */
+    @Test(timeout = 30000)
+    public void testVirtualThreads() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+        System.out.println("Testing a game on virtual threads.");
+        List<Integer> tens = new ArrayList<>(Collections.nCopies(200 * 11, 10));
+        PebbleGame virtualGame = new PebbleGame(200, BagStorage.ARRAY, tens, tens, tens);
+        virtualGame.setLogVerbosity(LogVerbosity.off());
+        
+        ExecutorService es = PlayerThreads.VIRTUAL.newExecutor(200);
+        virtualGame.start(es);
+        es.shutdown();
+        Assert.assertTrue("Every player should finish", es.awaitTermination(20, TimeUnit.SECONDS));
+        
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        int winners = 0;
+        for( PebbleGame.Player virtualPlayer : (PebbleGame.Player[]) players.get(virtualGame) ) {
+            for( String entry : virtualPlayer.getGameLog() ) {
+                if( entry.contains("GOT A WINNING HAND") ) {
+                    winners++;
+                }
+            }
+        }
+        Assert.assertEquals("Exactly one player should win", 1, winners);
+        Assert.assertTrue("Time taken to stop should be measured", virtualGame.getQuiesceNanos() >= 0);
+    }
+    
+    /**
+    * Win while the other player waits for a bag, with every bag empty.
+    * @result The waiting player stops without drawing, as soon as the win is claimed.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    * @throws InterruptedException
+    */
+    @Test(timeout = 10000)
+    public void testWinStopsWaitingPlayer() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+        System.out.println("Testing a win stopping a player waiting for a bag.");
+        PebbleGame stoppingGame = new PebbleGame(2, BagStorage.ARRAY,
+                Arrays.asList(new ArrayList<>(Collections.nCopies(10, 11))));
+        PebbleGame.Player winningPlayer = stoppingGame.new Player(1);
+        PebbleGame.Player waitingPlayer = stoppingGame.new Player(2);
+        winningPlayer.fillHand();   //Takes every pebble, without winning.
+        
+        Thread waiter = new Thread(waitingPlayer::draw);
+        waiter.start();
+        waiter.join(200);
+        Assert.assertTrue("Player should wait while every bag is empty", waiter.isAlive());
+        
+        Field handValue = PebbleGame.Player.class.getDeclaredField("handValue");
+        handValue.setAccessible(true);
+        handValue.set(winningPlayer, 100);
+        winningPlayer.checkWon();
+        waiter.join(1000);
+        Assert.assertFalse("Waiting player should stop once the game is won", waiter.isAlive());
+        Assert.assertEquals("Waiting player should not have drawn", 0, waitingPlayer.getHandValue());
+    }
+    
+    /**
+    * Win before the other player starts their next turn.
+    * @result The other player does not start the turn, keeping a full hand and their
+    * count of turns, and nothing more is logged.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test
+    public void testWinStopsTurn() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing a win stopping the next turn.");
+        PebbleGame stoppingGame = new PebbleGame(2, BagStorage.ARRAY,
+                Arrays.asList(new ArrayList<>(Collections.nCopies(30, 11))));
+        PebbleGame.Player winningPlayer = stoppingGame.new Player(1);
+        PebbleGame.Player turnPlayer = stoppingGame.new Player(2);
+        winningPlayer.fillHand();
+        turnPlayer.fillHand();
+        
+        Field handValue = PebbleGame.Player.class.getDeclaredField("handValue");
+        handValue.setAccessible(true);
+        handValue.set(winningPlayer, 100);
+        winningPlayer.checkWon();
+        
+        Field gameLog = PebbleGame.Player.class.getDeclaredField("gameLog");
+        gameLog.setAccessible(true);
+        EventLog log = (EventLog) gameLog.get(turnPlayer);
+        int eventsBeforeWin = log.size();
+        Assert.assertTrue("A full hand should be reported", turnPlayer.playTurn());
+        Assert.assertEquals("Player should keep a full hand", 10, getPlayerHand(turnPlayer).size());
+        Assert.assertEquals("No turn should be counted", 0, stoppingGame.getTurnsPlayed());
+        Assert.assertEquals("Nothing should be logged after the win", eventsBeforeWin, log.size());
+    }
+    
+    /**
+    * Play an impossible game for a moment, then stop it.
+    * @result Every player starts playing, the time to start the game is measured,
+    * and every player stops when interrupted.
+    * @throws InterruptedException
+    */
+    @Test(timeout = 30000)
+    public void testStartupLatency() throws InterruptedException {
+        System.out.println("Testing the time taken to start a game.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(50 * 11, 11));
+        PebbleGame impossibleGame = new PebbleGame(50, BagStorage.ARRAY, elevens, elevens, elevens);
+        impossibleGame.setLogVerbosity(LogVerbosity.off());
+        Assert.assertEquals("No turn should have been played yet", -1, impossibleGame.getStartupNanos());
+        
+        ExecutorService es = Executors.newFixedThreadPool(50);
+        impossibleGame.start(es);
+        Thread.sleep(200);
+        es.shutdownNow();
+        Assert.assertTrue("Every player should stop when interrupted", es.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertTrue("Time to start should be measured", impossibleGame.getStartupNanos() >= 0);
+        Assert.assertTrue("Turns should have been played", impossibleGame.getTurnsPlayed() > 0);
+    }
+    
+    /**
+    * Interrupt a player waiting for the other players to fill their hands.
+    * @result The player stops without playing a turn, and logs the interruption.
+    * @throws InterruptedException
+    */
+    @Test(timeout = 10000)
+    public void testInterruptedWhileWaiting() throws InterruptedException {
+        System.out.println("Testing a player interrupted before the game starts.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(22, 11));
+        PebbleGame waitingGame = new PebbleGame(2, BagStorage.ARRAY, elevens, elevens, elevens);
+        PebbleGame.Player waitingPlayer = waitingGame.new Player(1);
+        Thread thread = new Thread(waitingPlayer);
+        thread.start();
+        thread.join(200);
+        Assert.assertTrue("Player should wait for the other player", thread.isAlive());
+        thread.interrupt();
+        thread.join();
+        
+        List<String> log = new ArrayList<>();
+        waitingPlayer.getGameLog().forEach(log::add);
+        Assert.assertTrue("Interruption should be logged last", log.get(log.size() - 1).startsWith("Game was stopped before any player won"));
+        Assert.assertEquals("No turn should have been played", -1, waitingGame.getStartupNanos());
+    }
+    
+    /**
+    * Play the same turns of a seeded game with two players, taking turns one at a time.
+    * @param seed Seed of the game.
+    * @return Hands of both players after playing.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    private List<List<Integer>> playSeededGame( long seed ) throws NoSuchFieldException, IllegalAccessException {
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 30; i++){
+            pebbles.add(i * 7 % 23 + 1);
+        }
+        PebbleGame seededGame = new PebbleGame(2, BagStorage.ARRAY, pebbles, pebbles, pebbles);
+        seededGame.setSeed(seed);
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        PebbleGame.Player[] seededPlayers = (PebbleGame.Player[]) players.get(seededGame);
+        for( PebbleGame.Player seededPlayer : seededPlayers ) {
+            seededPlayer.fillHand();
+        }
+        //Play until a player wins, as the game would.
+        for(int turn = 0; turn < 200 && seededGame.getWinner() == 0; turn++){
+            for( PebbleGame.Player seededPlayer : seededPlayers ) {
+                seededPlayer.discard();
+                seededPlayer.draw();
+            }
+        }
+        List<List<Integer>> hands = new ArrayList<>();
+        for( PebbleGame.Player seededPlayer : seededPlayers ) {
+            hands.add(new ArrayList<>(getPlayerHand(seededPlayer)));
+        }
+        return hands;
+    }
+    
+    /**
+    * Play the same game twice with the same seed, and once with another seed.
+    * @result Players make the same choices with the same seed, and different
+    * choices with a different seed.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test
+    public void testSeededGame() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing seeded player choices.");
+        List<List<Integer>> first = playSeededGame(42);
+        Assert.assertEquals("Same seed should give the same game", first, playSeededGame(42));
+        Assert.assertNotEquals("Another seed should give another game", first, playSeededGame(43));
+    }
+    
+    /**
+    * Play a seeded game one turn at a time, and get the logs of its players.
+    * @param seed Seed of the game.
+    * @param order Order of the players' turns.
+    * @return Text of every player's log.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    private List<List<String>> playLockstepGame( long seed, TurnOrder order ) throws NoSuchFieldException, IllegalAccessException {
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 55; i++){
+            pebbles.add(i * 7 % 23 + 1);
+        }
+        PebbleGame lockstepGame = new PebbleGame(5, BagStorage.ARRAY, pebbles, pebbles, pebbles);
+        lockstepGame.setSeed(seed);
+        Assert.assertTrue("A player should win", lockstepGame.playLockstep(order, TimeUnit.SECONDS.toNanos(20)));
+        
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        List<List<String>> logs = new ArrayList<>();
+        for( PebbleGame.Player lockstepPlayer : (PebbleGame.Player[]) players.get(lockstepGame) ) {
+            List<String> log = new ArrayList<>();
+            lockstepPlayer.getGameLog().forEach(log::add);
+            logs.add(log);
+        }
+        return logs;
+    }
+    
+    /**
+    * Play the same seeded game twice one turn at a time, in each turn order.
+    * @result Both games log exactly the same events, and exactly one player wins.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 60000)
+    public void testLockstepReproducible() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing reproducible lockstep games.");
+        for( TurnOrder order : TurnOrder.values() ) {
+            List<List<String>> logs = playLockstepGame(11, order);
+            Assert.assertEquals("Same seed should give the same logs", logs, playLockstepGame(11, order));
+            int winners = 0;
+            for( List<String> log : logs ) {
+                if( log.get(log.size() - 1).contains("GOT A WINNING HAND") ) {
+                    winners++;
+                }
+            }
+            Assert.assertEquals("Exactly one player should win", 1, winners);
+        }
+    }
+    
+    /**
+    * Play an impossible game one turn at a time, with a short time limit.
+    * @result The game is stopped once the time runs out, and every player logs being stopped.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 10000)
+    public void testLockstepStopped() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing stopping an impossible lockstep game.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(3 * 11, 11));
+        PebbleGame impossibleGame = new PebbleGame(3, BagStorage.ARRAY, elevens, elevens, elevens);
+        Assert.assertFalse("No player should win", impossibleGame.playLockstep(TurnOrder.SHUFFLED, TimeUnit.MILLISECONDS.toNanos(100)));
+        Assert.assertTrue("Turns should have been played", impossibleGame.getTurnsPlayed() > 0);
+        
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        for( PebbleGame.Player stoppedPlayer : (PebbleGame.Player[]) players.get(impossibleGame) ) {
+            String lastEntry = null;
+            for( String entry : stoppedPlayer.getGameLog() ) {
+                lastEntry = entry;
+            }
+            Assert.assertTrue("Stopping should be logged last", lastEntry.startsWith("Game was stopped before any player won"));
+        }
+    }
+    
+    /**
+    * Play a game through the public API, on a pool with a thread per player.
+    * @result The result holds the winner's hand of 10 pebbles weighing 100, every
+    * other player's hand of 10 pebbles and the turns of every player.
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 20000)
+    public void testPlay() throws InterruptedException, ExecutionException {
+        System.out.println("Testing playing a game through the public API.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 33; i++){
+            pebbles.add(i % 19 + 1);
+        }
+        PebbleGame apiGame = new PebbleGame(3, BagStorage.ARRAY, Arrays.asList(pebbles, pebbles, pebbles));
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        try{
+            GameResult result = apiGame.play(es).get();
+            Assert.assertTrue("A player should win", result.isWon());
+            Assert.assertEquals("Every player should be in the result", 3, result.getNumPlayers());
+            int handValue = 0;
+            for( int pebble : result.getHand(result.getWinner()) ) {
+                handValue += pebble;
+            }
+            Assert.assertEquals("Winning hand should weigh 100", 100, handValue);
+            long turns = 0;
+            for(int i = 1; i <= 3; i++){
+                Assert.assertEquals("Every hand should hold 10 pebbles", 10, result.getHand(i).size());
+                turns += result.getTurns(i);
+            }
+            Assert.assertEquals("Turns of every player should be counted", apiGame.getTurnsPlayed(), turns);
+            Assert.assertTrue("Game should take time", result.getWallNanos() > 0);
+        } finally {
+            es.shutdownNow();
+        }
+        try{
+            apiGame.play(es);
+            Assert.fail("A game should only be played once");
+        } catch( IllegalStateException e ) {
+            //Expected.
+        }
+    }
+    
+    /**
+    * Play a game through the public API, writing the logs to a directory.
+    * @result The result is only completed once every player's log has been written.
+    * @throws IOException
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 20000)
+    public void testPlayToFiles() throws IOException, InterruptedException, ExecutionException {
+        System.out.println("Testing playing a game through the public API with output files.");
+        List<Integer> tens = new ArrayList<>(Collections.nCopies(22, 10));
+        PebbleGame apiGame = new PebbleGame(2, BagStorage.ARRAY, tens, tens, tens);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try{
+            GameResult result = apiGame.play(es, folder.getRoot().toPath()).get();
+            Assert.assertTrue("A player should win", result.isWon());
+            String winnerLog = new String(Files.readAllBytes(folder.getRoot().toPath().resolve(
+                    PebbleGame.playerName(result.getWinner()) + ".txt")), "UTF-8");
+            Assert.assertTrue("Winner's log should be written", winnerLog.contains("GOT A WINNING HAND"));
+            Path loserLog = folder.getRoot().toPath().resolve(PebbleGame.playerName(3 - result.getWinner()) + ".txt");
+            Assert.assertTrue("Every log should be written", Files.size(loserLog) > 0);
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Stop an impossible game played through the public API, by cancelling its result.
+    * @result Every player stops, and the game is counted as stopped without a winner.
+    * @throws InterruptedException
+    */
+    @Test(timeout = 20000)
+    public void testCancelPlay() throws InterruptedException {
+        System.out.println("Testing stopping a game played through the public API.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(33, 11));
+        PebbleGame apiGame = new PebbleGame(3, BagStorage.ARRAY, elevens, elevens, elevens);
+        apiGame.setLogVerbosity(LogVerbosity.off());
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        try{
+            CompletableFuture<GameResult> result = apiGame.play(es);
+            Thread.sleep(100);
+            Assert.assertTrue("Game should be cancelled", result.cancel(false));
+            es.shutdown();
+            Assert.assertTrue("Players should stop once the game is cancelled", es.awaitTermination(10, TimeUnit.SECONDS));
+            Assert.assertEquals("No player should win", 0, apiGame.getWinner());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Get the text of every player's log of a game.
+    * @param logGame The game.
+    * @return Text of every player's log.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    private List<List<String>> playerLogs( PebbleGame logGame ) throws NoSuchFieldException, IllegalAccessException {
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        List<List<String>> logs = new ArrayList<>();
+        for( PebbleGame.Player logPlayer : (PebbleGame.Player[]) players.get(logGame) ) {
+            List<String> log = new ArrayList<>();
+            logPlayer.getGameLog().forEach(log::add);
+            logs.add(log);
+        }
+        return logs;
+    }
+    
+    /**
+    * Play a seeded game, reset it and play it again with the same seed.
+    * @result The bags hold their initial pebbles again, and the second game plays
+    * out exactly like the first.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 20000)
+    public void testReset() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing resetting a game to play it again.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 44; i++){
+            pebbles.add(i * 5 % 17 + 1);
+        }
+        PebbleGame resetGame = new PebbleGame(4, BagStorage.ARRAY, pebbles, pebbles, pebbles);
+        resetGame.setSeed(5);
+        Assert.assertTrue("A player should win", resetGame.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(10)));
+        List<List<String>> firstLogs = playerLogs(resetGame);
+        int firstWinner = resetGame.getWinner();
+        
+        //Leave the logs as a writer and a batch would, for the reset to put back.
+        resetGame.setLogVerbosity(LogVerbosity.off());
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        Field gameLog = PebbleGame.Player.class.getDeclaredField("gameLog");
+        gameLog.setAccessible(true);
+        for( PebbleGame.Player player : (PebbleGame.Player[]) players.get(resetGame) ) {
+            ((EventLog) gameLog.get(player)).setTimed(true);
+        }
+        
+        resetGame.reset();
+        Field blackBags = PebbleGame.class.getDeclaredField("blackBags");
+        blackBags.setAccessible(true);
+        for( BlackBag bag : (BlackBag[]) blackBags.get(resetGame) ) {
+            Assert.assertEquals("Black bags should hold their initial pebbles", pebbles, bag.getPebbles());
+            Assert.assertEquals("White bags should be empty", 0, bag.getPair().size());
+        }
+        Assert.assertEquals("No player should have won", 0, resetGame.getWinner());
+        Assert.assertEquals("No turn should have been played", 0, resetGame.getTurnsPlayed());
+        
+        resetGame.setSeed(5);
+        Assert.assertTrue("A player should win again", resetGame.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(10)));
+        Assert.assertEquals("Same winner should win again", firstWinner, resetGame.getWinner());
+        Assert.assertEquals("Same game should be played again", firstLogs, playerLogs(resetGame));
+        for( PebbleGame.Player player : (PebbleGame.Player[]) players.get(resetGame) ) {
+            Assert.assertEquals("Logs should no longer be timed", 0, ((EventLog) gameLog.get(player)).time(0));
+        }
+    }
+    
+    /**
+    * Play and reset a game with each other way of storing pebbles.
+    * @result The bags hold their initial pebbles again, and only the lists a game
+    * storing pebbles in lists plays with are copied to be put back.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 20000)
+    public void testResetStorage() throws NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing resetting games with each way of storing pebbles.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 44; i++){
+            pebbles.add(i * 5 % 17 + 1);
+        }
+        List<Integer> sorted = new ArrayList<>(pebbles);
+        Collections.sort(sorted);
+        Field blackBags = PebbleGame.class.getDeclaredField("blackBags");
+        blackBags.setAccessible(true);
+        Field initialContents = PebbleGame.class.getDeclaredField("initialContents");
+        initialContents.setAccessible(true);
+        for( BagStorage storage : Arrays.asList(BagStorage.LIST, BagStorage.HISTOGRAM, BagStorage.ATOMIC) ) {
+            List<List<Integer>> contents = Arrays.asList(new ArrayList<>(pebbles), new ArrayList<>(pebbles), new ArrayList<>(pebbles));
+            PebbleGame resetGame = new PebbleGame(4, storage, contents);
+            resetGame.setSeed(5);
+            Assert.assertTrue("A player should win", resetGame.playLockstep(TurnOrder.SHUFFLED, TimeUnit.SECONDS.toNanos(10)));
+            resetGame.reset();
+            for( BlackBag bag : (BlackBag[]) blackBags.get(resetGame) ) {
+                List<Integer> held = new ArrayList<>(bag.getPebbles());
+                Collections.sort(held);
+                Assert.assertEquals(storage + " black bags should hold their initial pebbles", sorted, held);
+                Assert.assertEquals(storage + " white bags should be empty", 0, bag.getPair().size());
+            }
+            if( storage == BagStorage.LIST ) {
+                Assert.assertNotSame("Lists played with should be copied", contents, initialContents.get(resetGame));
+            } else {
+                Assert.assertSame("Lists given should be kept rather than copied", contents, initialContents.get(resetGame));
+            }
+        }
+    }
+    
+    /**
+    * Reset a game while its players are still playing.
+    * @result The game is not reset, until every player has stopped.
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 20000)
+    public void testResetWhilePlaying() throws InterruptedException, ExecutionException {
+        System.out.println("Testing resetting a game that is being played.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(33, 11));
+        PebbleGame playingGame = new PebbleGame(3, BagStorage.ARRAY, elevens, elevens, elevens);
+        playingGame.setLogVerbosity(LogVerbosity.off());
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        try{
+            CompletableFuture<GameResult> result = playingGame.play(es);
+            try{
+                playingGame.reset();
+                Assert.fail("A game should not be reset while it is played");
+            } catch( IllegalStateException e ) {
+                //Expected.
+            }
+            playingGame.stop();
+            Assert.assertFalse("No player should win", result.get().isWon());
+            playingGame.reset();
+            Assert.assertEquals("No turn should have been played", 0, playingGame.getTurnsPlayed());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Play a game on an executor in which a player fails while filling their hand,
+    * and a game whose black bags are too small for its players.
+    * @result The first game stops, completing its result with the player's exception,
+    * and the second is refused before any player starts.
+    * @throws InterruptedException
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 20000)
+    public void testPlayerFails() throws InterruptedException, NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing a player failing in a game played on an executor.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(88, 11));
+        PebbleGame failingGame = new PebbleGame(8, BagStorage.ARRAY, elevens, elevens, elevens);
+        failingGame.setLogVerbosity(LogVerbosity.off());
+        Field players = PebbleGame.class.getDeclaredField("allPlayers");
+        players.setAccessible(true);
+        Field random = PebbleGame.Player.class.getDeclaredField("random");
+        random.setAccessible(true);
+        random.set(((PebbleGame.Player[]) players.get(failingGame))[5], null); //Fails choosing a bag.
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try{
+            try{
+                failingGame.play(es).get();
+                Assert.fail("The player's failure should complete the result");
+            } catch( ExecutionException e ) {
+                Assert.assertTrue("Result should hold the player's exception", e.getCause() instanceof NullPointerException);
+            }
+            
+            List<Integer> tens = new ArrayList<>(Collections.nCopies(10, 10));
+            PebbleGame smallGame = new PebbleGame(8, BagStorage.ARRAY, tens, tens, tens);
+            try{
+                smallGame.play(es);
+                Assert.fail("Bags too small for every player should be refused");
+            } catch( IllegalStateException e ) {
+                smallGame.reset(); //Nothing was started, so the game can still be reset.
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Play a game writing its logs to a directory that does not exist, then play it
+    * again without output files.
+    * @result The first play fails without starting the game, so the game can still be played.
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 20000)
+    public void testPlayMissingDirectory() throws InterruptedException, ExecutionException {
+        System.out.println("Testing playing a game whose output directory cannot be opened.");
+        PebbleGame outputGame = TestGames.seededGame(3, 1);
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        try{
+            try{
+                outputGame.play(es, folder.getRoot().toPath().resolve("missing"));
+                Assert.fail("Logs should not be written to a missing directory");
+            } catch( IOException e ) {
+                //Expected.
+            }
+            Assert.assertTrue("The game should still be playable", outputGame.play(es).get().isWon());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Stop a game of 3 players while only 2 of them have filled their hands, the
+    * last player waiting for a thread.
+    * @result No player is told, or announces, that every player is ready, and each
+    * log ends with the game being stopped.
+    * @throws InterruptedException
+    * @throws ExecutionException
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    @Test(timeout = 20000)
+    public void testStopBeforeStart() throws InterruptedException, ExecutionException, NoSuchFieldException, IllegalAccessException {
+        System.out.println("Testing stopping a game before every player is ready.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(33, 11));
+        PebbleGame waitingGame = new PebbleGame(3, BagStorage.ARRAY, elevens, elevens, elevens);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try{
+            CompletableFuture<GameResult> result = waitingGame.play(es);
+            while( waitingGame.describePlayers().split("waiting for the other players", -1).length < 3 ) {
+                Thread.sleep(10);
+            }
+            waitingGame.stop();
+            Assert.assertFalse("No player should win", result.get().isWon());
+            for( List<String> log : playerLogs(waitingGame) ) {
+                for( String entry : log ) {
+                    Assert.assertFalse("No player should start playing", entry.contains("READY"));
+                }
+                Assert.assertTrue("Log should end with the game stopped", log.get(log.size() - 1).startsWith("Game was stopped"));
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+    
+    /**
+    * Play a game of 64 players on threads, with every black bag split into segments
+    * and the discards to every white bag kept in stripes.
+    * @result A player wins, and every pebble is still in a bag or a hand once the game ends.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 30000)
+    public void testSplitBags() throws NoSuchFieldException, IllegalAccessException, InterruptedException, ExecutionException {
+        System.out.println("Testing a game with black bags split into segments.");
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 64 * 11; i++){
+            pebbles.add(i % 19 + 1);
+        }
+        PebbleGame splitGame = new PebbleGame(64, BagStorage.ARRAY, pebbles, pebbles, pebbles);
+        splitGame.setLogVerbosity(LogVerbosity.off());
+        splitGame.setBlackBagSegments(4);
+        splitGame.setDepositStripes(8);
+        ExecutorService es = Executors.newFixedThreadPool(64);
+        GameResult result;
+        try{
+            result = splitGame.play(es).get();
+        } finally {
+            es.shutdownNow();
+        }
+        Assert.assertTrue("A player should win", result.isWon());
+        assertPebblesKept(splitGame, result, pebbles);
+    }
+    
+    /**
+    * Play a game that can never be won for a while, with every black bag split into
+    * segments and the discards to every white bag kept in stripes, then stop it.
+    * @result Every pebble is still in a bag or a hand, after many refills.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 30000)
+    public void testSplitBagsStopped() throws NoSuchFieldException, IllegalAccessException, InterruptedException, ExecutionException {
+        System.out.println("Testing a stopped game with black bags split into segments.");
+        List<Integer> elevens = new ArrayList<>(Collections.nCopies(16 * 11, 11));
+        PebbleGame splitGame = new PebbleGame(16, BagStorage.ARRAY, elevens, elevens, elevens);
+        splitGame.setLogVerbosity(LogVerbosity.off());
+        splitGame.setBlackBagSegments(4);
+        splitGame.setDepositStripes(8);
+        ExecutorService es = Executors.newFixedThreadPool(16);
+        GameResult result;
+        try{
+            CompletableFuture<GameResult> playing = splitGame.play(es);
+            Thread.sleep(500);
+            splitGame.stop();
+            result = playing.get();
+        } finally {
+            es.shutdownNow();
+        }
+        Assert.assertFalse("No player should win", result.isWon());
+        Assert.assertTrue("Bags should have been refilled many times", splitGame.getTurnsPlayed() > 16 * 11 * 3);
+        for( BlackBag bag : getBlackBags(splitGame) ) {
+            Assert.assertEquals("Black bags should be split", 4, bag.getSegments());
+            Assert.assertEquals("Discards should be striped", 8, bag.getPair().getDepositStripes());
+        }
+        assertPebblesKept(splitGame, result, elevens);
+    }
+    
+    /**
+    * Test a game with its pebbles kept in atomic stores, which players draw from and
+    * deposit into without locking the bags, stopping it after it has run for a while.
+    * @result Every pebble is kept, none drawn twice or lost, however often the bags were refilled.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    * @throws InterruptedException
+    * @throws ExecutionException
+    */
+    @Test(timeout = 20000)
+    public void testAtomicBagsStopped() throws NoSuchFieldException, IllegalAccessException, InterruptedException, ExecutionException {
+        System.out.println("Testing a stopped game with pebbles kept in atomic stores.");
+        //Every pebble weighs 11 or more, so no hand can win, and each is told apart by its weight.
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 16 * 11; i++){
+            pebbles.add(11 + i);
+        }
+        PebbleGame atomicGame = new PebbleGame(16, BagStorage.ATOMIC, pebbles, pebbles, pebbles);
+        atomicGame.setLogVerbosity(LogVerbosity.off());
+        ExecutorService es = Executors.newFixedThreadPool(16);
+        GameResult result;
+        try{
+            CompletableFuture<GameResult> playing = atomicGame.play(es);
+            Thread.sleep(500);
+            atomicGame.stop();
+            result = playing.get();
+        } finally {
+            es.shutdownNow();
+        }
+        Assert.assertFalse("No player should win", result.isWon());
+        Assert.assertTrue("Bags should have been refilled many times", atomicGame.getTurnsPlayed() > 16 * 11 * 3);
+        for( BlackBag bag : getBlackBags(atomicGame) ) {
+            Assert.assertTrue("Black bags should keep atomic stores", bag.getStore() instanceof AtomicPebbleStore);
+            Assert.assertTrue("White bags should keep atomic stores", bag.getPair().getStore() instanceof AtomicPebbleStore);
+        }
+        assertPebblesKept(atomicGame, result, pebbles);
+    }
+    
+    /**
+    * @param game The game.
+    * @return Black bags of the game.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    private BlackBag[] getBlackBags( PebbleGame game ) throws NoSuchFieldException, IllegalAccessException {
+        Field blackBags = PebbleGame.class.getDeclaredField("blackBags");
+        blackBags.setAccessible(true);
+        return (BlackBag[]) blackBags.get(game);
+    }
+    
+    /**
+    * Check that a finished game holds every pebble it started with.
+    * @param game The game.
+    * @param result Result of the game.
+    * @param pebbles Pebbles each black bag started with.
+    * @throws NoSuchFieldException
+    * @throws IllegalAccessException
+    */
+    private void assertPebblesKept( PebbleGame game, GameResult result, List<Integer> pebbles ) throws NoSuchFieldException, IllegalAccessException {
+        List<Integer> remaining = new ArrayList<>();
+        for(int player = 1; player <= result.getNumPlayers(); player++){
+            remaining.addAll(result.getHand(player));
+        }
+        for( BlackBag bag : getBlackBags(game) ) {
+            remaining.addAll(bag.getPebbles());
+            remaining.addAll(bag.getPair().getPebbles());
         }
+        List<Integer> initial = new ArrayList<>(pebbles);
+        initial.addAll(pebbles);
+        initial.addAll(pebbles);
+        Collections.sort(initial);
+        Collections.sort(remaining);
+        Assert.assertEquals("No pebble should be lost or added", initial, remaining);
     }
     
     /**
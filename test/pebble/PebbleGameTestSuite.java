@@ -7,5 +7,5 @@ import org.junit.runners.Suite;
  * Run all the test classes.
  */
 @RunWith(Suite.class)
-@Suite.SuiteClasses(value={PebbleGameTest.class, GameUserInputTest.class, BagTest.class, BlackBagTest.class, WhiteBagTest.class})
+@Suite.SuiteClasses(value={PebbleGameTest.class, GameUserInputTest.class, BagTest.class, BlackBagTest.class, WhiteBagTest.class, ArrayPebbleStoreTest.class, HistogramPebbleStoreTest.class, BagSelectorTest.class, LogVerbosityTest.class, PlayerLogWriterTest.class, GameEventFileTest.class, GameBatchTest.class, HandAnalyzerTest.class, GameWatchdogTest.class, GamePoolTest.class, GameSchedulerTest.class, GameLoopsTest.class, ShardedPebbleStoreTest.class, AtomicPebbleStoreTest.class})
 public class PebbleGameTestSuite {}
@@ -0,0 +1,119 @@
+package pebble;
+
+import java.util.List;
+
+/**
+ * Storage backing the pebbles held inside a bag.
+ */
+interface PebbleStore {
+
+    /**
+     * Get the number of pebbles in the store.
+     * @return Number of pebbles.
+     */
+    int size();
+
+    /**
+     * Retrieve value of a specific index in the store.
+     * @param index Index to evaluate.
+     * @return Value of pebble at that index.
+     */
+    int get( int index );
+
+    /**
+     * Add a pebble to the store.
+     * @param pebble Pebble to add.
+     */
+    void add( int pebble );
+
+    /**
+     * Remove a pebble using it's index, keeping the order of the remaining pebbles.
+     * @param index Index to remove.
+     */
+    void remove( int index );
+
+    /**
+     * Remove a pebble using it's index and return it, the order of the
+     * remaining pebbles may change.
+     * @param index Index to remove.
+     * @return Value of the removed pebble.
+     */
+    int take( int index );
+
+    /**
+     * Add every pebble from another store to this store.
+     * @param other Store to copy the pebbles from.
+     */
+    default void addAll( PebbleStore other ) {
+        for(int i = 0; i < other.size(); i++){
+            add(other.get(i));
+        }
+    }
+
+    /**
+     * Remove all pebbles from the store.
+     */
+    void clear();
+
+    /**
+     * Move every pebble from this store to another store, leaving this store empty.
+     * @param target Store to move the pebbles to.
+     */
+    default void moveTo( PebbleStore target ) {
+        target.addAll(this);
+        clear();
+    }
+
+    /**
+     * Get a list view of the pebbles, changes to the view write through to the store.
+     * @return List view of the pebbles.
+     */
+    List<Integer> view();
+}
+
+class ListPebbleStore implements PebbleStore {
+    private final List<Integer> pebbles;
+
+    /**
+     * Constructs a store around an existing pebble list.
+     * @param pebbles Pebbles list to use.
+     */
+    ListPebbleStore(List<Integer> pebbles){
+        this.pebbles = pebbles;
+    }
+
+    @Override
+    public int size() {
+        return pebbles.size();
+    }
+
+    @Override
+    public int get( int index ) {
+        return pebbles.get(index);
+    }
+
+    @Override
+    public void add( int pebble ) {
+        pebbles.add(pebble);
+    }
+
+    @Override
+    public void remove( int index ) {
+        pebbles.remove(index);
+    }
+
+    @Override
+    public int take( int index ) {
+        return pebbles.remove(index);
+    }
+
+    @Override
+    public void clear() {
+        pebbles.clear();
+    }
+
+    @Override
+    public List<Integer> view() {
+        return pebbles;
+    }
+}
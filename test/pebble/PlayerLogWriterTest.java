@@ -0,0 +1,136 @@
+package pebble;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class PlayerLogWriterTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Constructor for player log writer test.
+     */
+    public PlayerLogWriterTest() {
+    }
+    
+    /**
+     * Write two logs that hand over their records many times, through a small queue.
+     * @result Each file holds the text of every event of its log, in order,
+     * and the events that only record the hand are left out.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testStreamedLogs() throws IOException {
+        System.out.println("Testing streaming player logs to their files.");
+        Path directory = folder.getRoot().toPath();
+        PlayerLogWriter writer = new PlayerLogWriter(directory, 2, false);
+        PlayerLogWriter.Renderer renderer = (log, event, replayedHand) ->
+                log.type(event) == EventLog.HAND_PEBBLE ? null : "Event " + log.pebble(event) + " on turn " + log.turn(event);
+        
+        EventLog first = new EventLog(4);
+        EventLog second = new EventLog(4);
+        writer.open(first, "first.txt", renderer);
+        writer.open(second, "second.txt", renderer);
+        writer.start();
+        
+        List<String> expectedFirst = new ArrayList<>();
+        List<String> expectedSecond = new ArrayList<>();
+        for(int i = 0; i < 1000; i++){
+            first.record(EventLog.DRAW, i, 0, i, 0, 0);
+            expectedFirst.add("Event " + i + " on turn " + i);
+            second.record(i % 2 == 0 ? EventLog.DISCARD : EventLog.HAND_PEBBLE, i, 0, i, 0, 0);
+            if( i % 2 == 0 ) {
+                expectedSecond.add("Event " + i + " on turn " + i);
+            }
+        }
+        first.flush();
+        second.flush();
+        writer.close();
+        
+        assertEquals("First log was written incorrectly", expectedFirst,
+                Files.readAllLines(directory.resolve("first.txt"), StandardCharsets.UTF_8));
+        assertEquals("Second log was written incorrectly", expectedSecond,
+                Files.readAllLines(directory.resolve("second.txt"), StandardCharsets.UTF_8));
+        assertEquals("Events should have been handed over", 0, first.size());
+        first.record(EventLog.DRAW, 1, 0, 1, 0, 0);
+        assertEquals("Text logs should not read the clock", 0, first.time(0));
+    }
+    
+    /**
+     * Write a log whose renderer fails, through a small queue, then keep handing over
+     * records once the writer is closed, and while interrupted.
+     * @result The player is never left waiting, the failure is reported when closing,
+     * and the player's interrupt is kept.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testFailedWriter() throws IOException {
+        System.out.println("Testing handing over logs to a failed and closed writer.");
+        Path directory = folder.getRoot().toPath();
+        PlayerLogWriter writer = new PlayerLogWriter(directory, 1, false);
+        EventLog log = new EventLog(4);
+        writer.open(log, "failed.txt", (events, event, replayedHand) -> {
+            if( events.pebble(event) == 13 ) {
+                throw new IllegalStateException("Pebble 13 cannot be described.");
+            }
+            return "Player 1 has drawn a " + events.pebble(event);
+        });
+        writer.start();
+        for(int i = 0; i < 1000; i++){
+            log.record(EventLog.DRAW, i % 19 + 1, 0, i, 0, 0);
+        }
+        log.flush();
+        try{
+            writer.close();
+            fail("The failed renderer should be reported");
+        } catch( IOException e ) {
+            assertTrue("Failure should be the renderer's", e.getCause() instanceof IllegalStateException);
+        }
+        
+        Thread.currentThread().interrupt();
+        for(int i = 0; i < 1000; i++){
+            log.record(EventLog.DRAW, 1, 0, i, 0, 0);
+        }
+        log.flush();
+        assertTrue("Interrupt should be kept", Thread.interrupted());
+    }
+    
+    /**
+     * Write a compressed log, and read it back with the compressed log reader.
+     * @result The decompressed text is the text of every event, in order.
+     * @throws IOException
+     */
+    @Test(timeout = 10000)
+    public void testCompressedLog() throws IOException {
+        System.out.println("Testing streaming a compressed player log.");
+        Path directory = folder.getRoot().toPath();
+        PlayerLogWriter writer = new PlayerLogWriter(directory, 2, true);
+        EventLog log = new EventLog(4);
+        writer.open(log, "compressed.txt", (events, event, replayedHand) -> "Player 1 has drawn a " + events.pebble(event));
+        writer.start();
+        
+        StringBuilder expected = new StringBuilder();
+        for(int i = 0; i < 1000; i++){
+            log.record(EventLog.DRAW, i % 7, 0, i, 0, 0);
+            expected.append("Player 1 has drawn a ").append(i % 7).append(System.lineSeparator());
+        }
+        log.flush();
+        writer.close();
+        
+        Path compressed = directory.resolve("compressed.txt.gz");
+        assertTrue("Compressed file should be smaller than the text", Files.size(compressed) < expected.length() / 4);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        CompressedLogReader.decompress(compressed, text);
+        assertEquals("Decompressed log was not the text written", expected.toString(), text.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,148 @@
+package pebble;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares running players on platform threads and on virtual threads.
+ *
+ * Each run plays an impossible game, in which every pebble weighs 11, for a fixed
+ * time, then stops it and reports the turns played per second, the time taken to
+ * start the game and the most memory used while it ran.
+ */
+public final class PlayerThreadsBenchmark {
+    private static final long STOP_MILLIS = 30000;
+    private static final long SAMPLE_MILLIS = 100;
+
+    private PlayerThreadsBenchmark() {
+    }
+
+    /**
+     * Result of running a game for a fixed time.
+     */
+    private static class Run {
+        private String outcome = "ran";
+        private long turns;
+        private double seconds;
+        private long startupNanos;
+        private long peakHeapBytes;
+        private long peakResidentBytes;
+    }
+
+    /**
+     * Play an impossible game for a fixed time on the given kind of thread.
+     * @param numPlayers Number of players.
+     * @param threads Kind of thread the players run on.
+     * @param runMillis How long to let the game run.
+     * @return Turns played and memory used.
+     * @throws InterruptedException If interrupted while waiting for the game.
+     */
+    private static Run run( int numPlayers, PlayerThreads threads, long runMillis ) throws InterruptedException {
+        List<List<Integer>> contents = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            List<Integer> pebbles = new ArrayList<>(numPlayers * 11);
+            for(int j = 0; j < numPlayers * 11; j++){
+                pebbles.add(11);
+            }
+            contents.add(pebbles);
+        }
+        PebbleGame game = new PebbleGame(numPlayers, BagStorage.ARRAY, contents);
+        game.setLogVerbosity(LogVerbosity.off());
+        System.gc();
+
+        Run run = new Run();
+        ExecutorService es = threads.newExecutor(numPlayers);
+        long start = System.nanoTime();
+        try{
+            game.start(es);
+            long end = start + TimeUnit.MILLISECONDS.toNanos(runMillis);
+            while( System.nanoTime() < end ) {
+                sample(run);
+                Thread.sleep(SAMPLE_MILLIS);
+            }
+            sample(run);
+        } catch( OutOfMemoryError e ) {
+            run.outcome = "could not start every thread";
+            sample(run);
+        }
+        run.seconds = (System.nanoTime() - start) / 1e9;
+        //Interrupt the players until they all stop.
+        long stopBy = System.currentTimeMillis() + STOP_MILLIS;
+        do {
+            es.shutdownNow();
+        } while( !es.awaitTermination(SAMPLE_MILLIS, TimeUnit.MILLISECONDS) && System.currentTimeMillis() < stopBy );
+        if( !es.isTerminated() ) {
+            run.outcome += ", did not stop";
+        }
+        run.turns = game.getTurnsPlayed();
+        run.startupNanos = game.getStartupNanos();
+        return run;
+    }
+
+    /**
+     * Record the memory in use, if it is the most so far.
+     * @param run Run to record the memory of.
+     */
+    private static void sample( Run run ) {
+        Runtime runtime = Runtime.getRuntime();
+        run.peakHeapBytes = Math.max(run.peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+        run.peakResidentBytes = Math.max(run.peakResidentBytes, residentBytes());
+    }
+
+    /**
+     * Get the memory the process holds, including thread stacks, where the system reports it.
+     * @return Resident memory in bytes, or 0 if unknown.
+     */
+    private static long residentBytes() {
+        try{
+            for( String line : Files.readAllLines(Paths.get("/proc/self/status")) ) {
+                if( line.startsWith("VmRSS:") ) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch( IOException | NumberFormatException e ) {
+            //Not reported on this system.
+        }
+        return 0;
+    }
+
+    /**
+     * Run the comparison for each number of players given, or 10, 1000 and 100000 players.
+     * @param args Numbers of players, optionally followed by "--seconds=N" for the length of each run.
+     * @throws InterruptedException If interrupted while running.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<Integer> playerCounts = new ArrayList<>();
+        long runMillis = 5000;
+        for( String arg : args ) {
+            if( arg.startsWith("--seconds=") ) {
+                runMillis = Long.parseLong(arg.substring("--seconds=".length())) * 1000;
+            } else {
+                playerCounts.add(Integer.parseInt(arg));
+            }
+        }
+        if( playerCounts.isEmpty() ) {
+            playerCounts.add(10);
+            playerCounts.add(1000);
+            playerCounts.add(100000);
+        }
+        if( !PlayerThreads.virtualThreadsAvailable() ) {
+            System.out.println("Virtual threads need Java 21, virtual runs use small platform threads instead.");
+        }
+        System.out.println(String.format("%-9s %-9s %-42s %12s %12s %10s %10s %10s",
+                "players", "threads", "outcome", "turns", "turns/sec", "start ms", "heap MB", "rss MB"));
+        for( int numPlayers : playerCounts ) {
+            for( PlayerThreads threads : PlayerThreads.values() ) {
+                Run run = run(numPlayers, threads, runMillis);
+                System.out.println(String.format("%-9d %-9s %-42s %12d %12.0f %10.1f %10.1f %10.1f",
+                        numPlayers, threads.name().toLowerCase(), run.outcome, run.turns, run.turns / run.seconds,
+                        run.startupNanos / 1e6, run.peakHeapBytes / 1048576.0, run.peakResidentBytes / 1048576.0));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShardedPebbleStoreTest {
+
+    ShardedPebbleStore testStore;
+
+    /**
+     * Constructor for sharded pebble store test.
+     */
+    public ShardedPebbleStoreTest() {
+    }
+
+    /**
+     * Instantiate a new store of 2 segments for each test, holding the pebbles [1..5].
+     */
+    @Before
+    public void newStore(){
+        testStore = new ShardedPebbleStore(2, 5);
+        testStore.addAll(new ArrayPebbleStore(Arrays.asList(1,2,3,4,5)));
+    }
+
+    /**
+     * Test add method, of class ShardedPebbleStore.
+     * @result Pebbles are dealt to the segments in turn, and the view lists each segment in order.
+     */
+    @Test
+    public void testAdd() {
+        System.out.println("Testing add sharded store method.");
+        assertEquals("Incorrect size returned", 5, testStore.size());
+        assertEquals("Pebbles were not dealt to the segments in turn", Arrays.asList(1,3,5,2,4), testStore.view());
+    }
+
+    /**
+     * Test take and remove methods, of class ShardedPebbleStore.
+     */
+    @Test
+    public void testTake() {
+        System.out.println("Testing take sharded store method.");
+        assertEquals("Taken pebble was not the one at the index", 2, testStore.take(3));
+        assertEquals("Pebble was not taken correctly", Arrays.asList(1,3,5,4), testStore.view());
+        testStore.remove(0);
+        assertEquals("Pebble was not removed in order", Arrays.asList(3,5,4), testStore.view());
+        testStore.clear();
+        assertEquals("Store should be empty", 0, testStore.size());
+    }
+
+    /**
+     * Draw every pebble from a store on several threads at once.
+     * @result Every pebble is drawn exactly once, and the empty store draws nothing.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentDraws() throws InterruptedException {
+        System.out.println("Testing drawing from a sharded store on many threads.");
+        int numPebbles = 40000;
+        ShardedPebbleStore store = new ShardedPebbleStore(4, numPebbles);
+        for(int pebble = 1; pebble <= numPebbles; pebble++){
+            store.add(pebble);
+        }
+        List<List<Integer>> drawn = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            List<Integer> pebbles = new ArrayList<>();
+            drawn.add(pebbles);
+            SplittableRandom random = new SplittableRandom(i);
+            threads.add(new Thread(() -> {
+                int pebble = store.draw(random);
+                while( pebble != BlackBag.EMPTY ) {
+                    pebbles.add(pebble);
+                    pebble = store.draw(random);
+                }
+            }));
+        }
+        for( Thread thread : threads ) {
+            thread.start();
+        }
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+        boolean[] seen = new boolean[numPebbles + 1];
+        int total = 0;
+        for( List<Integer> pebbles : drawn ) {
+            for( int pebble : pebbles ) {
+                assertFalse("Pebble " + pebble + " was drawn twice", seen[pebble]);
+                seen[pebble] = true;
+                total++;
+            }
+        }
+        assertEquals("Every pebble should be drawn", numPebbles, total);
+        assertEquals("Store should be empty", 0, store.size());
+    }
+
+    /**
+     * Draw a single pebble from a balanced store many times.
+     * @result Every pebble is drawn about as often as every other.
+     */
+    @Test
+    public void testUniformDraws() {
+        System.out.println("Testing drawing uniformly from a sharded store.");
+        ShardedPebbleStore store = new ShardedPebbleStore(4, 20);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[20];
+        for(int i = 0; i < 100000; i++){
+            store.clear();
+            for(int pebble = 0; pebble < 20; pebble++){
+                store.add(pebble);
+            }
+            counts[store.draw(random)]++;
+        }
+        for( int count : counts ) {
+            assertTrue("Each pebble should be drawn about 5000 times, not " + count, count > 4500 && count < 5500);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pebble;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A game being played one step at a time for a scheduler, and the result it completes
+ * once the game is over.
+ */
+final class SteppedGame {
+    private final PebbleGame game;
+    private final PebbleGame.Lockstep steps;
+    private final CompletableFuture<GameResult> result;
+    private final long submitTime;
+
+    /**
+     * Start playing a game one step at a time. Cancelling the result stops the game.
+     * @param game A game that has not been started.
+     * @param order Order of the players' turns in each round.
+     * @param timeLimitNanos Time after which the game is stopped.
+     * @throws IllegalStateException If the game has already been started.
+     */
+    SteppedGame(PebbleGame game, TurnOrder order, long timeLimitNanos){
+        this.game = game;
+        submitTime = System.nanoTime();
+        steps = game.startLockstep(order, timeLimitNanos);
+        result = new CompletableFuture<>();
+        result.whenComplete((gameResult, failure) -> {
+            if( result.isCancelled() ) {
+                game.stop();
+            }
+        });
+    }
+
+    /**
+     * @return Result of the game, completed once every player has stopped.
+     */
+    CompletableFuture<GameResult> getResult() {
+        return result;
+    }
+
+    /**
+     * Take some steps of the game, completing the result if the game ends.
+     * @param maxSteps Most steps to take.
+     * @return Whether the game goes on.
+     */
+    boolean step( int maxSteps ) {
+        try{
+            for(int i = 0; i < maxSteps; i++){
+                if( !steps.step() ) {
+                    result.complete(game.getResult(System.nanoTime() - submitTime));
+                    return false;
+                }
+            }
+        } catch( RuntimeException | Error e ) {
+            result.completeExceptionally(e);
+            return false;
+        }
+        return true;
+    }
+}
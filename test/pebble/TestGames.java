@@ -0,0 +1,44 @@
+package pebble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Games shared by the tests that play whole games.
+ */
+class TestGames {
+
+    /**
+     * Not to be instantiated, only holds the shared fixtures.
+     */
+    private TestGames() {
+    }
+
+    /**
+     * Make the contents of three black bags that every hand can win with,
+     * holding 11 pebbles for each player, weighing from 1 to 19.
+     * @param numPlayers Number of players of the game.
+     * @return Contents of each black bag, the same list for all three.
+     */
+    static List<List<Integer>> blackBagContents( int numPlayers ) {
+        List<Integer> pebbles = new ArrayList<>();
+        for(int i = 0; i < 11 * numPlayers; i++){
+            pebbles.add(i % 19 + 1);
+        }
+        return Arrays.asList(pebbles, pebbles, pebbles);
+    }
+
+    /**
+     * Make a seeded game with array bags and no logs.
+     * @param numPlayers Number of players of the game.
+     * @param seed Seed of the game.
+     * @return The game.
+     */
+    static PebbleGame seededGame( int numPlayers, long seed ) {
+        PebbleGame game = new PebbleGame(numPlayers, BagStorage.ARRAY, blackBagContents(numPlayers));
+        game.setLogVerbosity(LogVerbosity.off());
+        game.setSeed(seed);
+        return game;
+    }
+}
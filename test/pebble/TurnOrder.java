@@ -0,0 +1,51 @@
+package pebble;
+
+import java.util.SplittableRandom;
+
+/**
+ * The order players take their turns in, when a game is played one turn at a time.
+ */
+public enum TurnOrder {
+
+    /**
+     * Players take their turns in order of their number, every round.
+     */
+    ROUND_ROBIN {
+        @Override
+        <T> void arrange(T[] players, SplittableRandom random) {
+            //The players keep their order.
+        }
+    },
+
+    /**
+     * Players take their turns in a new random order every round, which
+     * follows the game's seed if it has one.
+     */
+    SHUFFLED {
+        @Override
+        <T> void arrange(T[] players, SplittableRandom random) {
+            for(int i = players.length - 1; i > 0; i--){
+                int j = random.nextInt(i + 1);
+                T swapped = players[i];
+                players[i] = players[j];
+                players[j] = swapped;
+            }
+        }
+    };
+
+    /**
+     * Arrange the players in the order of their turns for the next round.
+     * @param players Players in the order of the last round, rearranged in place.
+     * @param random Random generator of the turn order.
+     */
+    abstract <T> void arrange(T[] players, SplittableRandom random);
+
+    /**
+     * Read a turn order written as "round-robin" or "shuffled".
+     * @param value Text of the turn order.
+     * @return The turn order.
+     */
+    static TurnOrder parse(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase());
+    }
+}
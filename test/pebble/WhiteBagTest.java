@@ -3,6 +3,7 @@ package pebble;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -28,4 +29,71 @@ public class WhiteBagTest {
         testWhiteBag.clear();
         assertEquals( "White bag was not cleared", testWhiteBag.getPebbles(), Arrays.asList());
     }
+    
+    /**
+     * Deposit into a white bag that keeps deposits in stripes, from many threads at once.
+     * @result No deposit reaches the bag until the paired black bag is refilled, which
+     * then holds every pebble deposited exactly once.
+     * @throws InterruptedException
+     */
+    @Test(timeout = 20000)
+    public void testStripedDeposits() throws InterruptedException {
+        System.out.println("Testing striped deposits into a White Bag.");
+        WhiteBag whiteBag = new WhiteBag(new ArrayPebbleStore(0), "b");
+        BlackBag blackBag = new BlackBag(new ArrayPebbleStore(0), "b");
+        blackBag.setPair(whiteBag);
+        whiteBag.setDepositStripes(3);
+        assertEquals("Deposits should be kept in 3 stripes", 3, whiteBag.getDepositStripes());
+        
+        List<Thread> depositors = new ArrayList<>();
+        for(int player = 1; player <= 8; player++){
+            int depositor = player;
+            depositors.add(new Thread(() -> {
+                for(int i = 0; i < 10000; i++){
+                    whiteBag.deposit(depositor, depositor * 10000 + i);
+                }
+            }));
+        }
+        for( Thread depositor : depositors ) {
+            depositor.start();
+        }
+        for( Thread depositor : depositors ) {
+            depositor.join();
+        }
+        assertEquals("Deposits should wait in their stripes", 0, whiteBag.size());
+        
+        blackBag.refill();
+        List<Integer> expected = new ArrayList<>();
+        for(int player = 1; player <= 8; player++){
+            for(int i = 0; i < 10000; i++){
+                expected.add(player * 10000 + i);
+            }
+        }
+        List<Integer> refilled = new ArrayList<>(blackBag.getPebbles());
+        Collections.sort(refilled);
+        assertEquals("Every deposit should be refilled once", expected, refilled);
+        assertEquals("White bag should be empty", 0, whiteBag.size());
+        
+        whiteBag.deposit(1, 5);
+        whiteBag.clear();
+        blackBag.refill();
+        assertEquals("Cleared deposits should be removed", 80000, blackBag.size());
+    }
+    
+    /**
+     * Test that a deposit reports when the bag has been emptied since the last deposit.
+     * @result Only the first deposit after each refill reports the bag refillable again.
+     */
+    @Test
+    public void testFirstDeposit() {
+        System.out.println("Testing the first deposit into an emptied White Bag.");
+        WhiteBag whiteBag = new WhiteBag(new ArrayPebbleStore(new ArrayList<>()), "a");
+        BlackBag blackBag = new BlackBag(new ArrayPebbleStore(new ArrayList<>()), "x");
+        blackBag.setPair(whiteBag);
+        assertTrue("First deposit into a new bag should be reported", whiteBag.deposit(1, 5));
+        assertFalse("Later deposits should not be reported", whiteBag.deposit(2, 6));
+        blackBag.refill();
+        assertTrue("First deposit after a refill should be reported", whiteBag.deposit(1, 7));
+        assertFalse("Later deposits should not be reported", whiteBag.deposit(1, 8));
+    }
 }